@@ -1,48 +1,75 @@
 import chess.board.Board;
+import chess.board.GameStatus;
 import chess.move.Move;
+import chess.move.MoveList;
+import chess.move.San;
+import chess.uci.UciEngine;
 
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+
+        // Match runners can start the engine with --uci and skip the console game
+        if (args.length > 0 && args[0].equals("--uci")) {
+            new UciEngine(reader, System.out).run();
+            return;
+        }
+
         Board board = new Board();
         System.out.println(board);
-        boolean isGameOver = false;
-        while (!isGameOver) {
-            Scanner scanner = new Scanner(System.in);
-            System.out.println("Enter your move (or 'exit' to quit): ");
-            System.out.println(board.generateLegalMoves());
-            String move = scanner.nextLine();
+        System.out.println("Enter your move in coordinates or SAN ('moves' lists the legal moves, 'uci' switches to "
+                + "the UCI protocol, 'exit' quits): ");
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String move = line.trim();
             if (move.equals("exit")) {
                 System.out.println("Game exited.");
                 break;
             }
 
-            // Parse the move and update the board
-            int from = move.charAt(0) - 'a' + (move.charAt(1) - '1') * 8;
-            int to = move.charAt(2) - 'a' + (move.charAt(3) - '1') * 8;
-            int moveType = Board.determineMoveType(board,from,to,1);
-            Move parsedMove = new Move(from, to, moveType);
-            System.out.println(board.getPieceChar(1L<<to));
-            // Check if the move is valid
-            if(board.generateLegalMoves().contains(parsedMove)) {
-                System.out.println("Valid move.");
-                // Make the move
-                board.makeMove(parsedMove);
-                System.out.println(board);
-            } else {
-                System.out.println("Invalid move. Try again.");
-                continue;
+            // A GUI that starts the plain console opens with "uci", hand it the rest of the input
+            if (move.equals("uci")) {
+                UciEngine engine = new UciEngine(reader, System.out);
+                engine.handle(move);
+                engine.run();
+                return;
             }
 
-            // Check for game over conditions
-            if (board.isCheckmate()) {
-                System.out.println("Checkmate! Game over.");
-                isGameOver = true;
-            } else if (board.isStalemate()) {
-                System.out.println("Stalemate! Game over.");
-                isGameOver = true;
+            if (move.equals("moves")) {
+                printLegalMoves(board);
+            } else if (!move.isEmpty()) {
+                try {
+                    board.makeMove(Move.isUciFormat(move) ? Move.parseUci(board, move) : San.parse(board, move));
+                    System.out.println(board);
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage() + ". Try again.");
+                }
+
+                // Check for game over conditions
+                GameStatus status = board.getGameStatus();
+                if (status.isGameOver()) {
+                    System.out.println(status.getDescription() + "! Game over.");
+                    break;
+                } else if (status == GameStatus.CHECK) {
+                    System.out.println("Check.");
+                }
             }
+
+            System.out.println("Enter your move: ");
+        }
+    }
+
+    private static void printLegalMoves(Board board) {
+        MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < moves.size(); i++) {
+            sb.append(San.toSan(board, moves.get(i))).append(' ');
         }
+        System.out.println(sb.toString().trim());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package chess.bench;
+
+import chess.board.Board;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the time and heap allocation of Board.setPosition (FEN parsing) and Board.toFen.
+ * Run with: java -cp bin chess.bench.FenBenchmark [iterations]
+ */
+public class FenBenchmark {
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Board board = new Board();
+
+        for (String fen : POSITIONS) {
+            // Warm up so the JIT has compiled both paths before measuring
+            long checksum = parse(board, fen, iterations / 10) + print(board, iterations / 10);
+
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            checksum += parse(board, fen, iterations);
+            long parseTime = System.nanoTime() - start;
+            long parseBytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            start = System.nanoTime();
+            checksum += print(board, iterations);
+            long printTime = System.nanoTime() - start;
+            long printBytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            System.out.printf("%s%n  parse %.1f ns, %.0f bytes/op; print %.1f ns, %.0f bytes/op (checksum %d)%n",
+                    fen, (double) parseTime / iterations, (double) parseBytes / iterations,
+                    (double) printTime / iterations, (double) printBytes / iterations, checksum);
+        }
+    }
+
+    private static long parse(Board board, String fen, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            board.setPosition(fen);
+            checksum += board.getHash();
+        }
+        return checksum;
+    }
+
+    private static long print(Board board, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += board.toFen().length();
+        }
+        return checksum;
+    }
+}
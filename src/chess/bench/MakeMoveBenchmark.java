@@ -0,0 +1,57 @@
+package chess.bench;
+
+import chess.board.Board;
+import chess.move.MoveList;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the time and heap allocation of Board.makeMove/unmakeMove.
+ * Run with: java -cp bin chess.bench.MakeMoveBenchmark [iterations]
+ */
+public class MakeMoveBenchmark {
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"
+    };
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (String fen : POSITIONS) {
+            Board board = new Board();
+            board.setPosition(fen);
+            MoveList moves = new MoveList();
+            board.generateLegalMoves(moves);
+
+            // Warm up so the JIT has compiled the hot path before measuring
+            long checksum = run(board, moves, iterations / 10);
+
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            checksum += run(board, moves, iterations);
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            long operations = (long) iterations * moves.size();
+            System.out.printf("%s%n  %d make/unmake pairs, %.1f ns/pair, %.3f bytes allocated/pair (checksum %d)%n",
+                    fen, operations, (double) elapsed / operations, (double) allocated / operations, checksum);
+        }
+    }
+
+    private static long run(Board board, MoveList moves, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (int j = 0; j < moves.size(); j++) {
+                board.makeMove(moves.get(j));
+                checksum += board.getOccupied();
+                board.unmakeMove();
+            }
+        }
+        return checksum;
+    }
+}
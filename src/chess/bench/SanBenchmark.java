@@ -0,0 +1,119 @@
+package chess.bench;
+
+import chess.board.Board;
+import chess.move.MoveList;
+import chess.move.San;
+
+import java.util.Random;
+
+/**
+ * Measures bulk SAN conversion: writing and reading back every move of long pseudo-random games. Every move
+ * read back is checked against the one written, and a few malformed moves are checked to be rejected first.
+ * Run with: java -cp bin chess.bench.SanBenchmark [games] [plies]
+ */
+public class SanBenchmark {
+    // Position and SAN pairs that parse must refuse
+    private static final String[][] REJECTED = {
+            // Castling with a rook or a queen on the king's square
+            {"4k3/8/8/8/8/8/8/4R2K w - - 0 1", "O-O"},
+            {"4k3/8/8/8/8/8/8/K3Q3 w - - 0 1", "O-O-O"},
+            {"4r2k/8/8/8/8/8/8/4K3 b - - 0 1", "O-O"},
+            // A capture without the capture sign, and a quiet move with one
+            {"7k/8/8/8/8/8/4K3/R6r w - - 0 1", "Rh1"},
+            {"7k/8/8/8/8/8/4K3/R6r w - - 0 1", "Rxa8"}
+    };
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int maxPlies = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        checkRejected();
+
+        // Play the games once up front so only the notation is timed
+        Random random = new Random(20240101L);
+        int[][] gameMoves = new int[games][];
+        int totalMoves = 0;
+        for (int g = 0; g < games; g++) {
+            gameMoves[g] = playRandomGame(random, maxPlies);
+            totalMoves += gameMoves[g].length;
+        }
+        String[][] gameSan = new String[games][];
+
+        // Warm up so the JIT has compiled both directions before measuring
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            checksum += write(gameMoves, gameSan) + read(gameMoves, gameSan);
+        }
+
+        long start = System.nanoTime();
+        checksum += write(gameMoves, gameSan);
+        long writeTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        checksum += read(gameMoves, gameSan);
+        long readTime = System.nanoTime() - start;
+
+        System.out.printf("%d games, %d moves%n", games, totalMoves);
+        System.out.printf("  toSan: %.1f ns/move, %.0f moves/s%n",
+                (double) writeTime / totalMoves, totalMoves * 1e9 / writeTime);
+        System.out.printf("  parse: %.1f ns/move, %.0f moves/s (checksum %d)%n",
+                (double) readTime / totalMoves, totalMoves * 1e9 / readTime, checksum);
+    }
+
+    private static void checkRejected() {
+        for (String[] entry : REJECTED) {
+            Board board = new Board();
+            board.setPosition(entry[0]);
+            try {
+                San.parse(board, entry[1]);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            throw new IllegalStateException("SAN parse accepted " + entry[1] + " in " + entry[0]);
+        }
+    }
+
+    private static int[] playRandomGame(Random random, int maxPlies) {
+        Board board = new Board();
+        MoveList moves = new MoveList();
+        int[] played = new int[maxPlies];
+        int plies = 0;
+        while (plies < maxPlies && !board.getGameStatus().isGameOver()) {
+            board.generateLegalMoves(moves);
+            played[plies] = moves.get(random.nextInt(moves.size()));
+            board.makeMove(played[plies++]);
+        }
+        int[] result = new int[plies];
+        System.arraycopy(played, 0, result, 0, plies);
+        return result;
+    }
+
+    private static long write(int[][] gameMoves, String[][] gameSan) {
+        long checksum = 0;
+        for (int g = 0; g < gameMoves.length; g++) {
+            Board board = new Board();
+            gameSan[g] = new String[gameMoves[g].length];
+            for (int i = 0; i < gameMoves[g].length; i++) {
+                gameSan[g][i] = San.toSan(board, gameMoves[g][i]);
+                board.makeMove(gameMoves[g][i]);
+                checksum += gameSan[g][i].length();
+            }
+        }
+        return checksum;
+    }
+
+    private static long read(int[][] gameMoves, String[][] gameSan) {
+        long checksum = 0;
+        for (int g = 0; g < gameMoves.length; g++) {
+            Board board = new Board();
+            for (int i = 0; i < gameSan[g].length; i++) {
+                int move = San.parse(board, gameSan[g][i]);
+                if (move != gameMoves[g][i]) {
+                    throw new IllegalStateException("SAN round trip failed for " + gameSan[g][i]);
+                }
+                board.makeMove(move);
+                checksum += move;
+            }
+        }
+        return checksum;
+    }
+}
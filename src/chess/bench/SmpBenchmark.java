@@ -0,0 +1,62 @@
+package chess.bench;
+
+import chess.board.Board;
+import chess.search.ParallelSearch;
+import chess.search.SearchLimits;
+import chess.search.SearchResult;
+import chess.search.TranspositionTable;
+
+/**
+ * Measures the Lazy SMP time-to-depth speedup: every position is searched to a fixed depth with a fresh
+ * transposition table, once per thread count, and the total wall time is compared with the single-threaded run.
+ * Run with: java -cp bin chess.bench.SmpBenchmark [depth] [maxThreads] [hashMb]
+ */
+public class SmpBenchmark {
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        TranspositionTable table = new TranspositionTable(hashMb);
+
+        // Warm up so the JIT has compiled the search before measuring
+        run(new ParallelSearch(1, table), table, Math.max(1, depth - 2));
+
+        long singleThreadNanos = 0;
+        System.out.printf("%d positions to depth %d, %d MB hash%n", POSITIONS.length, depth, hashMb);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ParallelSearch search = new ParallelSearch(threads, table);
+            long start = System.nanoTime();
+            long nodes = run(search, table, depth);
+            long elapsed = System.nanoTime() - start;
+            search.shutdown();
+
+            if (threads == 1) {
+                singleThreadNanos = elapsed;
+            }
+            System.out.printf("  %3d threads: %8.1f ms, speedup %.2fx, %d nodes, %.0f nodes/s%n",
+                    threads, elapsed / 1e6, (double) singleThreadNanos / elapsed, nodes, nodes * 1e9 / elapsed);
+        }
+    }
+
+    private static long run(ParallelSearch search, TranspositionTable table, int depth) {
+        long nodes = 0;
+        for (String fen : POSITIONS) {
+            Board board = new Board();
+            board.setPosition(fen);
+            table.clear();
+            SearchResult result = search.search(board, SearchLimits.depth(depth));
+            nodes += result.getNodes();
+        }
+        return nodes;
+    }
+}
@@ -44,6 +44,10 @@ public class BitboardConstants {
     public static final long NOT_FILE_AB = ~(FILE_A | FILE_B);  // For knight moves that go 2 east
     public static final long NOT_FILE_GH = ~(FILE_G | FILE_H);  // For knight moves that go 2 west
 
+    // Color complexes, a1 is a dark square
+    public static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+    public static final long LIGHT_SQUARES = ~DARK_SQUARES;
+
     // Square Indices
     public static final int A1 = 0, B1 = 1, C1 = 2, D1 = 3, E1 = 4, F1 = 5, G1 = 6, H1 = 7;
     public static final int A2 = 8, B2 = 9, C2 = 10, D2 = 11, E2 = 12, F2 = 13, G2 = 14, H2 = 15;
@@ -2,134 +2,274 @@ package chess.board;
 
 import chess.move.Move;
 import chess.move.MoveGenerator;
+import chess.move.MoveList;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
 
 public class Board {
-    // Bitboards for pieces
-    private long whitePawns, whiteKnights, whiteBishops, whiteRooks, whiteQueens, whiteKing;
-    private long blackPawns, blackKnights, blackBishops, blackRooks, blackQueens, blackKing;
+    // Piece codes, also used as indices into the piece bitboards
+    public static final int WHITE_PAWN = 0, WHITE_KNIGHT = 1, WHITE_BISHOP = 2, WHITE_ROOK = 3, WHITE_QUEEN = 4, WHITE_KING = 5;
+    public static final int BLACK_PAWN = 6, BLACK_KNIGHT = 7, BLACK_BISHOP = 8, BLACK_ROOK = 9, BLACK_QUEEN = 10, BLACK_KING = 11;
+    public static final int EMPTY_SQUARE = 12;
+
+    // Castling right flags
+    public static final int WHITE_KINGSIDE = 1, WHITE_QUEENSIDE = 2, BLACK_KINGSIDE = 4, BLACK_QUEENSIDE = 8;
+
+    // Run with -Dchess.verifyHash=true to check the incremental hash keys and evaluation terms against a full
+    // recomputation after every move
+    private static final boolean VERIFY_HASH = Boolean.getBoolean("chess.verifyHash");
+
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk.";
+
+    // Castling rights that survive a move touching the square, so a move only needs rights &= mask[from] & mask[to]
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    // Largest halfmove clock the 13 bits in the undo state can hold
+    private static final int MAX_HALFMOVE_CLOCK = 0x1FFF;
+
+    static {
+        Arrays.fill(CASTLING_MASKS, WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[BitboardConstants.E1] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[BitboardConstants.H1] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[BitboardConstants.A1] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[BitboardConstants.E8] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[BitboardConstants.H8] &= ~BLACK_KINGSIDE;
+        CASTLING_MASKS[BitboardConstants.A8] &= ~BLACK_QUEENSIDE;
+    }
+
+    // Bitboards for pieces, indexed by piece code
+    private final long[] pieces = new long[12];
+
+    // Piece code on every square, kept in sync with the bitboards so a lookup is a single array read
+    private final byte[] mailbox = new byte[64];
+
+    // Occupancy unions, updated together with the piece bitboards
+    private long whitePieces, blackPieces, occupied;
 
     // Game state
-    private boolean whiteToMove, whiteKingsideCastle, whiteQueensideCastle, blackKingsideCastle, blackQueensideCastle;
+    private boolean whiteToMove;
+    private int castlingRights;
     private int enPassantSquare;
 
-    private final Stack<BoardState> boardStates = new Stack<>();
+    // Halfmoves since the last capture or pawn move, for the fifty-move rule and repetition scans
+    private int halfmoveClock;
+
+    // Starts at 1 and goes up after every black move
+    private int fullmoveNumber = 1;
+
+    // Zobrist keys of the whole position and of the pawns alone, updated incrementally
+    private long hash, pawnHash;
+
+    // Sum of PieceSquareTables values of all pieces (midgame and endgame packed into one int, white positive)
+    // and the game phase, updated incrementally by the same helpers that move the pieces
+    private int pieceSquareScore, phase;
+
+    // Undo stack indexed by ply. Each entry keeps the move and a packed int holding the captured piece (bits 0-3),
+    // the moving piece (bits 4-7), the castling rights (bits 8-11), the en passant square + 1 (bits 12-18)
+    // and the halfmove clock (bits 19-31).
+    // The hash keys before the move are kept alongside so unmaking does not need to recompute them, and
+    // undoHashes doubles as the position history for repetition detection.
+    // The arrays only grow when a game gets longer than any game before it on this board.
+    private int[] undoMoves;
+    private int[] undoStates;
+    private long[] undoHashes;
+    private long[] undoPawnHashes;
+    private int ply;
+
+    // Status of the current position, computed on first request and dropped whenever the position changes
+    private GameStatus status;
 
-    private static final int WHITE_PAWN = 64, WHITE_KNIGHT = 65, WHITE_BISHOP = 66, WHITE_ROOK = 67, WHITE_QUEEN = 68, WHITE_KING = 69;
-    private static final int BLACK_PAWN = 70, BLACK_KNIGHT = 71, BLACK_BISHOP = 72, BLACK_ROOK = 73, BLACK_QUEEN = 74, BLACK_KING = 75;
-    private static final int EMPTY_SQUARE = 76;
+    // Squares attacked by each side (index 0 white, 1 black), valid when the matching bit of attackMapsValid is set
+    private final long[] attackMaps = new long[2];
+    private int attackMapsValid;
 
     public Board() {
-        whitePawns = BitboardConstants.WHITE_PAWNS_INITIAL;
-        whiteKnights = BitboardConstants.WHITE_KNIGHTS_INITIAL;
-        whiteBishops = BitboardConstants.WHITE_BISHOPS_INITIAL;
-        whiteRooks = BitboardConstants.WHITE_ROOKS_INITIAL;
-        whiteQueens = BitboardConstants.WHITE_QUEENS_INITIAL;
-        whiteKing = BitboardConstants.WHITE_KINGS_INITIAL;
-
-        blackPawns = BitboardConstants.BLACK_PAWNS_INITIAL;
-        blackKnights = BitboardConstants.BLACK_KNIGHTS_INITIAL;
-        blackBishops = BitboardConstants.BLACK_BISHOPS_INITIAL;
-        blackRooks = BitboardConstants.BLACK_ROOKS_INITIAL;
-        blackQueens = BitboardConstants.BLACK_QUEENS_INITIAL;
-        blackKing = BitboardConstants.BLACK_KINGS_INITIAL;
+        undoMoves = new int[256];
+        undoStates = new int[256];
+        undoHashes = new long[256];
+        undoPawnHashes = new long[256];
+
+        pieces[WHITE_PAWN] = BitboardConstants.WHITE_PAWNS_INITIAL;
+        pieces[WHITE_KNIGHT] = BitboardConstants.WHITE_KNIGHTS_INITIAL;
+        pieces[WHITE_BISHOP] = BitboardConstants.WHITE_BISHOPS_INITIAL;
+        pieces[WHITE_ROOK] = BitboardConstants.WHITE_ROOKS_INITIAL;
+        pieces[WHITE_QUEEN] = BitboardConstants.WHITE_QUEENS_INITIAL;
+        pieces[WHITE_KING] = BitboardConstants.WHITE_KINGS_INITIAL;
+
+        pieces[BLACK_PAWN] = BitboardConstants.BLACK_PAWNS_INITIAL;
+        pieces[BLACK_KNIGHT] = BitboardConstants.BLACK_KNIGHTS_INITIAL;
+        pieces[BLACK_BISHOP] = BitboardConstants.BLACK_BISHOPS_INITIAL;
+        pieces[BLACK_ROOK] = BitboardConstants.BLACK_ROOKS_INITIAL;
+        pieces[BLACK_QUEEN] = BitboardConstants.BLACK_QUEENS_INITIAL;
+        pieces[BLACK_KING] = BitboardConstants.BLACK_KINGS_INITIAL;
+        rebuildDerivedState();
 
         whiteToMove = true;
-        whiteKingsideCastle = true;
-        whiteQueensideCastle = true;
-        blackKingsideCastle = true;
-        blackQueensideCastle = true;
+        castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
         enPassantSquare = -1;
+        hash = computeHash();
+        pawnHash = computePawnHash();
+    }
+
+    // Copies the position together with its undo history, so the copy can unmake the moves played before it
+    public Board(Board other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        whitePieces = other.whitePieces;
+        blackPieces = other.blackPieces;
+        occupied = other.occupied;
+
+        whiteToMove = other.whiteToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        pawnHash = other.pawnHash;
+        pieceSquareScore = other.pieceSquareScore;
+        phase = other.phase;
+
+        // Only the played moves are copied, the arrays grow again if the copy goes deeper
+        int capacity = Math.max(other.ply + 64, 128);
+        undoMoves = Arrays.copyOf(other.undoMoves, capacity);
+        undoStates = Arrays.copyOf(other.undoStates, capacity);
+        undoHashes = Arrays.copyOf(other.undoHashes, capacity);
+        undoPawnHashes = Arrays.copyOf(other.undoPawnHashes, capacity);
+        ply = other.ply;
+        status = other.status;
+        attackMaps[0] = other.attackMaps[0];
+        attackMaps[1] = other.attackMaps[1];
+        attackMapsValid = other.attackMapsValid;
+    }
+
+    public Board copy() {
+        return new Board(this);
+    }
+
+    // Immutable copy of the current position for readers on other threads; the undo history is not included
+    public Position snapshot() {
+        return new Position(pieces, whiteToMove, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber, hash);
     }
 
     public long getWhitePawns() {
-        return whitePawns;
+        return pieces[WHITE_PAWN];
     }
 
     public long getWhiteKnights() {
-        return whiteKnights;
+        return pieces[WHITE_KNIGHT];
     }
 
     public long getWhiteBishops() {
-        return whiteBishops;
+        return pieces[WHITE_BISHOP];
     }
 
     public long getWhiteRooks() {
-        return whiteRooks;
+        return pieces[WHITE_ROOK];
     }
 
     public long getWhiteQueens() {
-        return whiteQueens;
+        return pieces[WHITE_QUEEN];
     }
 
     public long getWhiteKing() {
-        return whiteKing;
+        return pieces[WHITE_KING];
     }
 
     public long getBlackPawns() {
-        return blackPawns;
+        return pieces[BLACK_PAWN];
     }
 
     public long getBlackKnights() {
-        return blackKnights;
+        return pieces[BLACK_KNIGHT];
     }
 
     public long getBlackBishops() {
-        return blackBishops;
+        return pieces[BLACK_BISHOP];
     }
 
     public long getBlackRooks() {
-        return blackRooks;
+        return pieces[BLACK_ROOK];
     }
 
     public long getBlackQueens() {
-        return blackQueens;
+        return pieces[BLACK_QUEEN];
     }
 
     public long getBlackKing() {
-        return blackKing;
+        return pieces[BLACK_KING];
+    }
+
+    public long getPieces(int piece) {
+        return pieces[piece];
     }
 
     public int getEnPassantSquare() {
         return enPassantSquare;
     }
 
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
     public boolean canWhiteSideCastleKingside() {
-        return whiteKingsideCastle;
+        return (castlingRights & WHITE_KINGSIDE) != 0;
     }
 
     public boolean canWhiteSideCastleQueenside() {
-        return whiteQueensideCastle;
+        return (castlingRights & WHITE_QUEENSIDE) != 0;
     }
 
     public boolean canBlackSideCastleKingside() {
-        return blackKingsideCastle;
+        return (castlingRights & BLACK_KINGSIDE) != 0;
     }
 
     public boolean canBlackSideCastleQueenside() {
-        return blackQueensideCastle;
+        return (castlingRights & BLACK_QUEENSIDE) != 0;
     }
 
     public boolean isWhiteToMove() {
         return whiteToMove;
     }
 
+    public long getHash() {
+        return hash;
+    }
+
+    // Key over the pawns only, for caching pawn structure terms
+    public long getPawnHash() {
+        return pawnHash;
+    }
+
+    // Midgame and endgame piece-square scores packed as in PieceSquareTables, from white's point of view
+    public int getPieceSquareScore() {
+        return pieceSquareScore;
+    }
+
+    // From PieceSquareTables.MAX_PHASE at the start down to 0 with only kings and pawns left
+    public int getPhase() {
+        return phase;
+    }
+
+    // Number of moves that can currently be undone
+    public int getPly() {
+        return ply;
+    }
+
     public long getWhitePieces() {
-        return whitePawns | whiteKnights | whiteBishops | whiteRooks | whiteQueens | whiteKing;
+        return whitePieces;
     }
 
     public long getBlackPieces() {
-        return blackPawns | blackKnights | blackBishops | blackRooks | blackQueens | blackKing;
+        return blackPieces;
     }
 
     public long getOccupied() {
-        return getWhitePieces() | getBlackPieces();
+        return occupied;
     }
 
     public long getEmpty() {
-        return ~getOccupied();
+        return ~occupied;
     }
 
     public void printBoard() {
@@ -165,230 +305,249 @@ public class Board {
     }
 
     public char getPieceChar(long squareBit) {
-        if ((whitePawns & squareBit) != 0) return 'P';
-        if ((whiteKnights & squareBit) != 0) return 'N';
-        if ((whiteBishops & squareBit) != 0) return 'B';
-        if ((whiteRooks & squareBit) != 0) return 'R';
-        if ((whiteQueens & squareBit) != 0) return 'Q';
-        if ((whiteKing & squareBit) != 0) return 'K';
-
-        if ((blackPawns & squareBit) != 0) return 'p';
-        if ((blackKnights & squareBit) != 0) return 'n';
-        if ((blackBishops & squareBit) != 0) return 'b';
-        if ((blackRooks & squareBit) != 0) return 'r';
-        if ((blackQueens & squareBit) != 0) return 'q';
-        if ((blackKing & squareBit) != 0) return 'k';
-
-        return '.';
-    }
-
-    private void clearSquare(int square) {
-        long squareMask = ~(1L << square);
-
-        whitePawns &= squareMask;
-        whiteKnights &= squareMask;
-        whiteBishops &= squareMask;
-        whiteRooks &= squareMask;
-        whiteQueens &= squareMask;
-        whiteKing &= squareMask;
-        blackPawns &= squareMask;
-        blackKnights &= squareMask;
-        blackBishops &= squareMask;
-        blackRooks &= squareMask;
-        blackQueens &= squareMask;
-        blackKing &= squareMask;
+        return PIECE_CHARS.charAt(mailbox[Long.numberOfTrailingZeros(squareBit)]);
     }
 
     public int getPieceAt(int square) {
-        long squareBB = 1L << square;
-
-        if ((whitePawns & squareBB) != 0) return WHITE_PAWN;
-        if ((whiteKnights & squareBB) != 0) return WHITE_KNIGHT;
-        if ((whiteBishops & squareBB) != 0) return WHITE_BISHOP;
-        if ((whiteRooks & squareBB) != 0) return WHITE_ROOK;
-        if ((whiteQueens & squareBB) != 0) return WHITE_QUEEN;
-        if ((whiteKing & squareBB) != 0) return WHITE_KING;
-        if ((blackPawns & squareBB) != 0) return BLACK_PAWN;
-        if ((blackKnights & squareBB) != 0) return BLACK_KNIGHT;
-        if ((blackBishops & squareBB) != 0) return BLACK_BISHOP;
-        if ((blackRooks & squareBB) != 0) return BLACK_ROOK;
-        if ((blackQueens & squareBB) != 0) return BLACK_QUEEN;
-        if ((blackKing & squareBB) != 0) return BLACK_KING;
-
-        return EMPTY_SQUARE;
+        return mailbox[square];
     }
 
-    private void setPieceAt(int square, int pieceType) {
+    private void addPiece(int piece, int square) {
         long squareBB = 1L << square;
-
-        switch (pieceType) {
-            case WHITE_PAWN:
-                whitePawns |= squareBB;
-                break;
-            case WHITE_KNIGHT:
-                whiteKnights |= squareBB;
-                break;
-            case WHITE_BISHOP:
-                whiteBishops |= squareBB;
-                break;
-            case WHITE_ROOK:
-                whiteRooks |= squareBB;
-                break;
-            case WHITE_QUEEN:
-                whiteQueens |= squareBB;
-                break;
-            case WHITE_KING:
-                whiteKing |= squareBB;
-                break;
-            case BLACK_PAWN:
-                blackPawns |= squareBB;
-                break;
-            case BLACK_KNIGHT:
-                blackKnights |= squareBB;
-                break;
-            case BLACK_BISHOP:
-                blackBishops |= squareBB;
-                break;
-            case BLACK_ROOK:
-                blackRooks |= squareBB;
-                break;
-            case BLACK_QUEEN:
-                blackQueens |= squareBB;
-                break;
-            case BLACK_KING:
-                blackKing |= squareBB;
-                break;
+        pieces[piece] |= squareBB;
+        mailbox[square] = (byte) piece;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnHash ^= Zobrist.PIECE_SQUARE[piece][square];
         }
+        pieceSquareScore += PieceSquareTables.PACKED[piece * 64 + square];
+        phase += PieceSquareTables.PHASE[piece];
+        if (piece < BLACK_PAWN) {
+            whitePieces |= squareBB;
+        } else {
+            blackPieces |= squareBB;
+        }
+        occupied |= squareBB;
     }
 
-    private int determinePromotionPiece(int pawnPiece, int promotionType) {
-        boolean isWhitePawn = (pawnPiece == WHITE_PAWN);
-
-        return switch (promotionType) {
-            case Move.KNIGHT_PROMOTION -> isWhitePawn ? WHITE_KNIGHT : BLACK_KNIGHT;
-            case Move.BISHOP_PROMOTION -> isWhitePawn ? WHITE_BISHOP : BLACK_BISHOP;
-            case Move.ROOK_PROMOTION -> isWhitePawn ? WHITE_ROOK : BLACK_ROOK;
-            default -> isWhitePawn ? WHITE_QUEEN : BLACK_QUEEN;
-        };
+    private void removePiece(int piece, int square) {
+        long squareBB = 1L << square;
+        pieces[piece] &= ~squareBB;
+        mailbox[square] = EMPTY_SQUARE;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnHash ^= Zobrist.PIECE_SQUARE[piece][square];
+        }
+        pieceSquareScore -= PieceSquareTables.PACKED[piece * 64 + square];
+        phase -= PieceSquareTables.PHASE[piece];
+        if (piece < BLACK_PAWN) {
+            whitePieces &= ~squareBB;
+        } else {
+            blackPieces &= ~squareBB;
+        }
+        occupied &= ~squareBB;
     }
 
-    private void updateCastlingRights(int movingPiece, int fromSquare, int toSquare, int capturedPiece) {
-        // When the king moves, lose all castling rights for that color
-        if (movingPiece == WHITE_KING) {
-            whiteKingsideCastle = false;
-            whiteQueensideCastle = false;
-        } else if (movingPiece == BLACK_KING) {
-            blackKingsideCastle = false;
-            blackQueensideCastle = false;
+    private void movePiece(int piece, int fromSquare, int toSquare) {
+        long fromToBB = (1L << fromSquare) | (1L << toSquare);
+        pieces[piece] ^= fromToBB;
+        mailbox[fromSquare] = EMPTY_SQUARE;
+        mailbox[toSquare] = (byte) piece;
+        long keys = Zobrist.PIECE_SQUARE[piece][fromSquare] ^ Zobrist.PIECE_SQUARE[piece][toSquare];
+        hash ^= keys;
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnHash ^= keys;
         }
+        pieceSquareScore += PieceSquareTables.PACKED[piece * 64 + toSquare] - PieceSquareTables.PACKED[piece * 64 + fromSquare];
+        if (piece < BLACK_PAWN) {
+            whitePieces ^= fromToBB;
+        } else {
+            blackPieces ^= fromToBB;
+        }
+        occupied ^= fromToBB;
+    }
 
-        // When any rook moves from either color, lose the castling rights from that side
-        else if (movingPiece == WHITE_ROOK) {
-            if (fromSquare == 7) {
-                whiteKingsideCastle = false;
-            } else if (fromSquare == 0) {
-                whiteQueensideCastle = false;
+    // Recomputes the mailbox, occupancy unions and evaluation terms from the piece bitboards
+    private void rebuildDerivedState() {
+        Arrays.fill(mailbox, (byte) EMPTY_SQUARE);
+        whitePieces = blackPieces = 0L;
+        for (int piece = WHITE_PAWN; piece <= BLACK_KING; piece++) {
+            long bitboard = pieces[piece];
+            while (bitboard != 0) {
+                mailbox[Long.numberOfTrailingZeros(bitboard)] = (byte) piece;
+                bitboard &= bitboard - 1;
             }
-        } else if (movingPiece == BLACK_ROOK) {
-            if (fromSquare == 63) {
-                blackKingsideCastle = false;
-            } else if (fromSquare == 56) {
-                blackQueensideCastle = false;
+            if (piece < BLACK_PAWN) {
+                whitePieces |= pieces[piece];
+            } else {
+                blackPieces |= pieces[piece];
             }
         }
+        occupied = whitePieces | blackPieces;
+        pieceSquareScore = computePieceSquareScore();
+        phase = computePhase();
+    }
+
+    // Recomputes the position key from scratch
+    public long computeHash() {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            if (mailbox[square] != EMPTY_SQUARE) {
+                key ^= Zobrist.PIECE_SQUARE[mailbox[square]][square];
+            }
+        }
+        key ^= Zobrist.CASTLING[castlingRights];
+        key ^= enPassantKey();
+        if (!whiteToMove) {
+            key ^= Zobrist.SIDE_TO_MOVE;
+        }
+        return key;
+    }
 
-        if (capturedPiece == WHITE_ROOK) {
-            if (toSquare == 7) {
-                whiteKingsideCastle = false;
-            } else if (toSquare == 0) {
-                whiteQueensideCastle = false;
+    // Recomputes the pawn key from scratch
+    public long computePawnHash() {
+        long key = 0L;
+        for (int piece : new int[]{WHITE_PAWN, BLACK_PAWN}) {
+            long pawns = pieces[piece];
+            while (pawns != 0) {
+                key ^= Zobrist.PIECE_SQUARE[piece][Long.numberOfTrailingZeros(pawns)];
+                pawns &= pawns - 1;
             }
-        } else if (capturedPiece == BLACK_ROOK) {
-            if (toSquare == 63) {
-                blackKingsideCastle = false;
-            } else if (toSquare == 56) {
-                blackQueensideCastle = false;
+        }
+        return key;
+    }
+
+    // Recomputes the packed piece-square score from scratch
+    public int computePieceSquareScore() {
+        int score = 0;
+        for (int square = 0; square < 64; square++) {
+            if (mailbox[square] != EMPTY_SQUARE) {
+                score += PieceSquareTables.PACKED[mailbox[square] * 64 + square];
             }
         }
+        return score;
+    }
+
+    // Recomputes the game phase from scratch
+    public int computePhase() {
+        int total = 0;
+        for (int piece = WHITE_PAWN; piece <= BLACK_KING; piece++) {
+            total += PieceSquareTables.PHASE[piece] * Long.bitCount(pieces[piece]);
+        }
+        return total;
+    }
+
+    // The en passant file only goes into the key when the side to move has a pawn that can capture there,
+    // otherwise positions that differ in nothing but an unusable en passant square would hash differently
+    private long enPassantKey() {
+        if (enPassantSquare == -1) {
+            return 0L;
+        }
+        long capturers = pieces[whiteToMove ? WHITE_PAWN : BLACK_PAWN];
+        if ((MoveGenerator.getPawnAttacks(enPassantSquare, !whiteToMove) & capturers) == 0) {
+            return 0L;
+        }
+        return Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
     }
 
-    private BoardState saveBoardState() {
-        return new BoardState(
-                whitePawns, whiteKnights, whiteBishops, whiteRooks, whiteQueens, whiteKing,
-                blackPawns, blackKnights, blackBishops, blackRooks, blackQueens, blackKing,
-                whiteToMove, whiteKingsideCastle, whiteQueensideCastle, blackKingsideCastle, blackQueensideCastle,
-                enPassantSquare
-        );
+    private void verifyHash() {
+        if (hash != computeHash() || pawnHash != computePawnHash()) {
+            throw new IllegalStateException("Incremental hash out of sync after ply " + ply + ":\n" + this);
+        }
+        if (pieceSquareScore != computePieceSquareScore() || phase != computePhase()) {
+            throw new IllegalStateException("Incremental evaluation out of sync after ply " + ply + ":\n" + this);
+        }
+    }
+
+    private int determinePromotionPiece(boolean isWhitePawn, int promotionType) {
+        return switch (promotionType) {
+            case Move.KNIGHT_PROMOTION -> isWhitePawn ? WHITE_KNIGHT : BLACK_KNIGHT;
+            case Move.BISHOP_PROMOTION -> isWhitePawn ? WHITE_BISHOP : BLACK_BISHOP;
+            case Move.ROOK_PROMOTION -> isWhitePawn ? WHITE_ROOK : BLACK_ROOK;
+            default -> isWhitePawn ? WHITE_QUEEN : BLACK_QUEEN;
+        };
     }
 
     public void makeMove(Move move) {
-        // Store the board state before making a move so that we can undo this later
-        BoardState previousBoardState = saveBoardState();
-        boardStates.push(previousBoardState);
-
-        // Get the from squares and to squares and convert them to bitboard along with the moveType
-        // Even though this could have happened in 2 lines, this would help in understanding
-        int fromSquare = move.getFrom();
-        int toSquare = move.getTo();
-        long fromBB = 1L << fromSquare;
-        long toBB = 1L << toSquare;
-        int moveType = move.getMoveType();
-
-        // Get piece on the from square
-        int movingPiece = getPieceAt(fromSquare);
+        makeMove(move.encode());
+    }
+
+    // Plays a move in the packed int form produced by Move.encode
+    public void makeMove(int move) {
+        status = null;
+        attackMapsValid = 0;
+        int fromSquare = Move.from(move);
+        int toSquare = Move.to(move);
+        int moveType = Move.moveType(move);
+
+        int movingPiece = mailbox[fromSquare];
         int capturedPiece = EMPTY_SQUARE; // Default value when no capture
 
-        // Clear the from square (for all piece bitboards)
-        clearSquare(fromSquare);
+        // The en passant victim sits behind the target square, every other capture is on the target square
+        int captureSquare = toSquare;
+        if (moveType == Move.EN_PASSANT_CAPTURE) {
+            captureSquare = whiteToMove ? (toSquare - 8) : (toSquare + 8);
+        }
+        if (Move.isCapture(move)) {
+            capturedPiece = mailbox[captureSquare];
+        }
 
-        // Handle captures - remove the captured piece from its bitboards
-        if (moveType == Move.CAPTURE || moveType == Move.PROMOTION_CAPTURE) {
-            capturedPiece = getPieceAt(toSquare);
-            clearSquare(toSquare);
+        // Remember only what cannot be recomputed from the move itself
+        if (ply == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, ply * 2);
+            undoStates = Arrays.copyOf(undoStates, ply * 2);
+            undoHashes = Arrays.copyOf(undoHashes, ply * 2);
+            undoPawnHashes = Arrays.copyOf(undoPawnHashes, ply * 2);
         }
+        undoMoves[ply] = move;
+        undoStates[ply] = capturedPiece | (movingPiece << 4) | (castlingRights << 8) | ((enPassantSquare + 1) << 12) | (halfmoveClock << 19);
+        undoHashes[ply] = hash;
+        undoPawnHashes[ply] = pawnHash;
+        ply++;
 
-        // Handle special en passant capture
-        if (moveType == Move.EN_PASSANT_CAPTURE) {
-            int epCaptureSquare = whiteToMove ?
-                    (toSquare - 8) : (toSquare + 8);
-            capturedPiece = getPieceAt(epCaptureSquare);
-            clearSquare(epCaptureSquare);
+        // Take the old en passant and castling keys out before anything changes
+        hash ^= enPassantKey() ^ Zobrist.CASTLING[castlingRights];
+
+        if (capturedPiece != EMPTY_SQUARE) {
+            removePiece(capturedPiece, captureSquare);
         }
 
-        // Place the piece on the destination square
-        if (moveType == Move.PROMOTION || moveType == Move.PROMOTION_CAPTURE) {
-            // Determine promotion piece type
-            int promotionPiece = determinePromotionPiece(movingPiece, move.getPromotionPiece());
-            setPieceAt(toSquare, promotionPiece);
+        if (Move.isPromotion(move)) {
+            removePiece(movingPiece, fromSquare);
+            addPiece(determinePromotionPiece(whiteToMove, Move.promotionPiece(move)), toSquare);
         } else {
-            // Standard move of the piece to the target square
-            setPieceAt(toSquare, movingPiece);
+            movePiece(movingPiece, fromSquare, toSquare);
         }
 
         // Handle castling - move the rook as well
         if (moveType == Move.KING_CASTLE) {
+            // Rook goes from h1 to f1, or from h8 to f8
             if (whiteToMove) {
-                // White kingside castling - move rook from h1 to f1
-                clearSquare(7);  // h1
-                setPieceAt(5, WHITE_ROOK);  // f1
+                movePiece(WHITE_ROOK, BitboardConstants.H1, BitboardConstants.F1);
             } else {
-                // Black kingside castling - move rook from h8 to f8
-                clearSquare(63);  // h8
-                setPieceAt(61, BLACK_ROOK);  // f8
+                movePiece(BLACK_ROOK, BitboardConstants.H8, BitboardConstants.F8);
             }
         } else if (moveType == Move.QUEEN_CASTLE) {
+            // Rook goes from a1 to d1, or from a8 to d8
             if (whiteToMove) {
-                // White queenside castling - move rook from a1 to d1
-                clearSquare(0);  // a1
-                setPieceAt(3, WHITE_ROOK);  // d1
+                movePiece(WHITE_ROOK, BitboardConstants.A1, BitboardConstants.D1);
             } else {
-                // Black queenside castling - move rook from a8 to d8
-                clearSquare(56);  // a8
-                setPieceAt(59, BLACK_ROOK);  // d8
+                movePiece(BLACK_ROOK, BitboardConstants.A8, BitboardConstants.D8);
             }
         }
 
-        updateCastlingRights(movingPiece, fromSquare, toSquare, capturedPiece);
+        castlingRights &= CASTLING_MASKS[fromSquare] & CASTLING_MASKS[toSquare];
+
+        // Captures and pawn moves cannot be undone, so no earlier position can repeat after them
+        if (capturedPiece != EMPTY_SQUARE || movingPiece == WHITE_PAWN || movingPiece == BLACK_PAWN) {
+            halfmoveClock = 0;
+        } else if (halfmoveClock < MAX_HALFMOVE_CLOCK) {
+            // Held at the limit so the undo state cannot wrap; the fifty-move rule applies long before
+            halfmoveClock++;
+        }
+        if (!whiteToMove) {
+            fullmoveNumber++;
+        }
 
         // Update en passant square
         if (moveType == Move.DOUBLE_PAWN_PUSH) {
@@ -398,99 +557,435 @@ public class Board {
         }
 
         whiteToMove = !whiteToMove;
+        hash ^= Zobrist.SIDE_TO_MOVE ^ Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+
+        if (VERIFY_HASH) {
+            verifyHash();
+        }
     }
 
     public void unmakeMove() {
-        if (boardStates.isEmpty()) {
+        if (ply == 0) {
             throw new IllegalStateException("No moves to undo!");
         }
+        status = null;
+        attackMapsValid = 0;
+
+        ply--;
+        int move = undoMoves[ply];
+        int state = undoStates[ply];
+
+        int fromSquare = Move.from(move);
+        int toSquare = Move.to(move);
+        int moveType = Move.moveType(move);
+
+        int capturedPiece = state & 0xF;
+        int movingPiece = (state >>> 4) & 0xF;
+
+        whiteToMove = !whiteToMove;
+        castlingRights = (state >>> 8) & 0xF;
+        enPassantSquare = ((state >>> 12) & 0x7F) - 1;
+        halfmoveClock = state >>> 19;
+        if (!whiteToMove) {
+            fullmoveNumber--;
+        }
+
+        if (Move.isPromotion(move)) {
+            removePiece(mailbox[toSquare], toSquare);
+            addPiece(movingPiece, fromSquare);
+        } else {
+            movePiece(movingPiece, toSquare, fromSquare);
+        }
+
+        if (capturedPiece != EMPTY_SQUARE) {
+            int captureSquare = toSquare;
+            if (moveType == Move.EN_PASSANT_CAPTURE) {
+                captureSquare = whiteToMove ? (toSquare - 8) : (toSquare + 8);
+            }
+            addPiece(capturedPiece, captureSquare);
+        }
 
-        BoardState previousState = boardStates.pop();
+        if (moveType == Move.KING_CASTLE) {
+            if (whiteToMove) {
+                movePiece(WHITE_ROOK, BitboardConstants.F1, BitboardConstants.H1);
+            } else {
+                movePiece(BLACK_ROOK, BitboardConstants.F8, BitboardConstants.H8);
+            }
+        } else if (moveType == Move.QUEEN_CASTLE) {
+            if (whiteToMove) {
+                movePiece(WHITE_ROOK, BitboardConstants.D1, BitboardConstants.A1);
+            } else {
+                movePiece(BLACK_ROOK, BitboardConstants.D8, BitboardConstants.A8);
+            }
+        }
 
-        whitePawns = previousState.whitePawns;
-        whiteKnights = previousState.whiteKnights;
-        whiteBishops = previousState.whiteBishops;
-        whiteRooks = previousState.whiteRooks;
-        whiteQueens = previousState.whiteQueens;
-        whiteKing = previousState.whiteKing;
-        blackPawns = previousState.blackPawns;
-        blackKnights = previousState.blackKnights;
-        blackBishops = previousState.blackBishops;
-        blackRooks = previousState.blackRooks;
-        blackQueens = previousState.blackQueens;
-        blackKing = previousState.blackKing;
+        // Restore the saved keys, which also covers castling, en passant and the side to move
+        hash = undoHashes[ply];
+        pawnHash = undoPawnHashes[ply];
 
-        whiteToMove = previousState.whiteToMove;
-        whiteKingsideCastle = previousState.whiteKingsideCastle;
-        whiteQueensideCastle = previousState.whiteQueensideCastle;
-        blackKingsideCastle = previousState.blackKingsideCastle;
-        blackQueensideCastle = previousState.blackQueensideCastle;
-        enPassantSquare = previousState.enPassantSquare;
+        if (VERIFY_HASH) {
+            verifyHash();
+        }
     }
 
+    /**
+     * Sets up the position from a FEN string in a single pass over its characters.
+     * <p>
+     * All six fields are read. The halfmove clock and fullmove number may be left out together, as in EPD
+     * strings, and then default to 0 and 1. The board is only changed once the whole string has been
+     * validated, so a rejected FEN leaves the previous position in place.
+     *
+     * @param fen The position in Forsyth-Edwards Notation
+     * @throws IllegalArgumentException if the FEN is malformed or describes an impossible position
+     */
     public void setPosition(String fen) {
-        // Clear the current position
-        whitePawns = whiteKnights = whiteBishops = whiteRooks = whiteQueens = whiteKing = 0L;
-        blackPawns = blackKnights = blackBishops = blackRooks = blackQueens = blackKing = 0L;
-
-        String[] parts = fen.split(" ");
-        String piecePositions = parts[0];
-        String activeColor = parts[1];
-        String castlingRights = parts[2];
-        String epSquare = parts[3];
+        if (fen == null) {
+            throw new IllegalArgumentException("FEN must not be null");
+        }
 
-        // Parse piece positions
-        int rank = 7;  // Start at the 8th rank (index 7)
-        int file = 0;  // Start at the A file (index 0)
+        long[] parsedPieces = new long[12];
+        int length = fen.length();
+        int index = 0;
 
-        for (char c : piecePositions.toCharArray()) {
+        // Piece placement, rank 8 first
+        int rank = 7;
+        int file = 0;
+        while (index < length && fen.charAt(index) != ' ') {
+            char c = fen.charAt(index++);
             if (c == '/') {
+                if (file != 8) {
+                    throw invalidFen(fen, "rank " + (rank + 1) + " does not have 8 squares");
+                }
+                if (rank == 0) {
+                    throw invalidFen(fen, "more than 8 ranks");
+                }
                 rank--;
                 file = 0;
-            } else if (Character.isDigit(c)) {
-                file += Character.getNumericValue(c);
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) {
+                    throw invalidFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
+                }
             } else {
-                int square = rank * 8 + file;
-                long bitboard = 1L << square;
-
-                switch (c) {
-                    case 'P': whitePawns |= bitboard; break;
-                    case 'N': whiteKnights |= bitboard; break;
-                    case 'B': whiteBishops |= bitboard; break;
-                    case 'R': whiteRooks |= bitboard; break;
-                    case 'Q': whiteQueens |= bitboard; break;
-                    case 'K': whiteKing |= bitboard; break;
-                    case 'p': blackPawns |= bitboard; break;
-                    case 'n': blackKnights |= bitboard; break;
-                    case 'b': blackBishops |= bitboard; break;
-                    case 'r': blackRooks |= bitboard; break;
-                    case 'q': blackQueens |= bitboard; break;
-                    case 'k': blackKing |= bitboard; break;
+                int piece = PIECE_CHARS.indexOf(c);
+                if (piece < WHITE_PAWN || piece > BLACK_KING) {
+                    throw invalidFen(fen, "unknown piece '" + c + "'");
+                }
+                if (file == 8) {
+                    throw invalidFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
                 }
+                parsedPieces[piece] |= 1L << (rank * 8 + file);
                 file++;
             }
         }
+        if (rank != 0 || file != 8) {
+            throw invalidFen(fen, "piece placement does not cover 8 ranks of 8 squares");
+        }
+        String pieceError = checkPieces(parsedPieces);
+        if (pieceError != null) {
+            throw invalidFen(fen, pieceError);
+        }
+
+        // Side to move
+        index = skipSeparator(fen, index);
+        boolean parsedWhiteToMove;
+        char side = index < length ? fen.charAt(index++) : ' ';
+        if (side == 'w') {
+            parsedWhiteToMove = true;
+        } else if (side == 'b') {
+            parsedWhiteToMove = false;
+        } else {
+            throw invalidFen(fen, "side to move must be 'w' or 'b'");
+        }
+
+        // Castling rights
+        index = skipSeparator(fen, index);
+        int parsedCastlingRights = 0;
+        if (index < length && fen.charAt(index) == '-') {
+            index++;
+        } else {
+            int start = index;
+            while (index < length && fen.charAt(index) != ' ') {
+                int flag = castlingFlag(fen.charAt(index++));
+                if (flag == 0 || (parsedCastlingRights & flag) != 0) {
+                    throw invalidFen(fen, "bad castling field");
+                }
+                parsedCastlingRights |= flag;
+            }
+            if (index == start) {
+                throw invalidFen(fen, "missing castling field");
+            }
+        }
+        if (!castlingPiecesInPlace(parsedPieces, parsedCastlingRights)) {
+            throw invalidFen(fen, "castling rights without the king and rook on their home squares");
+        }
+
+        // En passant target, on the sixth rank when white is to move and on the third when black is
+        index = skipSeparator(fen, index);
+        int parsedEnPassantSquare = -1;
+        if (index < length && fen.charAt(index) == '-') {
+            index++;
+        } else {
+            char epFile = index < length ? fen.charAt(index) : ' ';
+            char epRank = index + 1 < length ? fen.charAt(index + 1) : ' ';
+            if (epFile < 'a' || epFile > 'h' || epRank != (parsedWhiteToMove ? '6' : '3')) {
+                throw invalidFen(fen, "bad en passant square");
+            }
+            parsedEnPassantSquare = (epRank - '1') * 8 + (epFile - 'a');
+            index += 2;
+        }
+
+        // Halfmove clock and fullmove number
+        int parsedHalfmoveClock = 0;
+        int parsedFullmoveNumber = 1;
+        if (index < length) {
+            index = skipSeparator(fen, index);
+            int end = skipDigits(fen, index);
+            parsedHalfmoveClock = parseNumber(fen, index, end, MAX_HALFMOVE_CLOCK, "halfmove clock");
+
+            index = skipSeparator(fen, end);
+            end = skipDigits(fen, index);
+            parsedFullmoveNumber = parseNumber(fen, index, end, Integer.MAX_VALUE, "fullmove number");
+            if (parsedFullmoveNumber < 1) {
+                throw invalidFen(fen, "fullmove number must be at least 1");
+            }
+            if (end != length) {
+                throw invalidFen(fen, "unexpected trailing characters");
+            }
+        }
+
+        // Everything is valid, replace the position
+        loadPosition(parsedPieces, parsedWhiteToMove, parsedCastlingRights, parsedEnPassantSquare,
+                parsedHalfmoveClock, parsedFullmoveNumber);
+    }
+
+    // Replaces the position with already validated parts and clears the undo history
+    void loadPosition(long[] newPieces, boolean newWhiteToMove, int newCastlingRights, int newEnPassantSquare,
+                              int newHalfmoveClock, int newFullmoveNumber) {
+        System.arraycopy(newPieces, 0, pieces, 0, pieces.length);
+        rebuildDerivedState();
+        whiteToMove = newWhiteToMove;
+        castlingRights = newCastlingRights;
+        enPassantSquare = newEnPassantSquare;
+        halfmoveClock = newHalfmoveClock;
+        fullmoveNumber = newFullmoveNumber;
+
+        hash = computeHash();
+        pawnHash = computePawnHash();
+
+        ply = 0;
+        status = null;
+        attackMapsValid = 0;
+    }
+
+    /**
+     * Packs the position into a compact binary form of at most 30 bytes (with all 32 pieces on the board):
+     * <ul>
+     *     <li>8 bytes: occupancy bitboard, big-endian</li>
+     *     <li>one 4-bit piece code (the Board piece constants) per occupied square in square order, low nibble
+     *     first, padded to a whole byte</li>
+     *     <li>1 byte: side to move (bit 4, set for white) and castling rights (bits 0-3)</li>
+     *     <li>1 byte: en passant square + 1, 0 when there is none</li>
+     *     <li>2 bytes each: halfmove clock and fullmove number, big-endian, the fullmove number capped at 65535</li>
+     * </ul>
+     */
+    public byte[] encode() {
+        int pieceCount = Long.bitCount(occupied);
+        int pieceBytes = (pieceCount + 1) / 2;
+        byte[] data = new byte[8 + pieceBytes + 6];
+
+        for (int i = 0; i < 8; i++) {
+            data[i] = (byte) (occupied >>> (56 - 8 * i));
+        }
+
+        long remaining = occupied;
+        for (int i = 0; remaining != 0; i++) {
+            int piece = mailbox[Long.numberOfTrailingZeros(remaining)];
+            remaining &= remaining - 1;
+            data[8 + i / 2] |= (byte) ((i & 1) == 0 ? piece : piece << 4);
+        }
+
+        int index = 8 + pieceBytes;
+        data[index++] = (byte) ((whiteToMove ? 0x10 : 0) | castlingRights);
+        data[index++] = (byte) (enPassantSquare + 1);
+        data[index++] = (byte) (halfmoveClock >>> 8);
+        data[index++] = (byte) halfmoveClock;
+        int fullmove = Math.min(fullmoveNumber, 0xFFFF);
+        data[index++] = (byte) (fullmove >>> 8);
+        data[index] = (byte) fullmove;
+        return data;
+    }
+
+    /**
+     * Sets up the position from the output of {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the data is truncated or describes an impossible position
+     */
+    public void decode(byte[] data) {
+        if (data == null || data.length < 8) {
+            throw new IllegalArgumentException("Encoded position is too short");
+        }
+
+        long occupancy = 0L;
+        for (int i = 0; i < 8; i++) {
+            occupancy = (occupancy << 8) | (data[i] & 0xFF);
+        }
+        int pieceBytes = (Long.bitCount(occupancy) + 1) / 2;
+        if (data.length != 8 + pieceBytes + 6) {
+            throw new IllegalArgumentException("Encoded position has " + data.length + " bytes, expected " + (8 + pieceBytes + 6));
+        }
+
+        long[] decodedPieces = new long[12];
+        long remaining = occupancy;
+        for (int i = 0; remaining != 0; i++) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            int piece = (data[8 + i / 2] >>> ((i & 1) * 4)) & 0xF;
+            if (piece > BLACK_KING) {
+                throw new IllegalArgumentException("Encoded position has an invalid piece code " + piece);
+            }
+            decodedPieces[piece] |= 1L << square;
+        }
+        String pieceError = checkPieces(decodedPieces);
+        if (pieceError != null) {
+            throw new IllegalArgumentException("Encoded position is invalid: " + pieceError);
+        }
+
+        int index = 8 + pieceBytes;
+        int flags = data[index++] & 0xFF;
+        boolean decodedWhiteToMove = (flags & 0x10) != 0;
+        int decodedCastlingRights = flags & 0xF;
+        int decodedEnPassantSquare = (data[index++] & 0xFF) - 1;
+        int decodedHalfmoveClock = ((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF);
+        int decodedFullmoveNumber = ((data[index + 2] & 0xFF) << 8) | (data[index + 3] & 0xFF);
+
+        if ((flags & ~0x1F) != 0 || !castlingPiecesInPlace(decodedPieces, decodedCastlingRights)) {
+            throw new IllegalArgumentException("Encoded position has invalid castling flags");
+        }
+        if (decodedEnPassantSquare != -1 && decodedEnPassantSquare / 8 != (decodedWhiteToMove ? 5 : 2)) {
+            throw new IllegalArgumentException("Encoded position has an invalid en passant square");
+        }
+        if (decodedHalfmoveClock > MAX_HALFMOVE_CLOCK || decodedFullmoveNumber < 1) {
+            throw new IllegalArgumentException("Encoded position has invalid move counters");
+        }
+
+        loadPosition(decodedPieces, decodedWhiteToMove, decodedCastlingRights, decodedEnPassantSquare,
+                decodedHalfmoveClock, decodedFullmoveNumber);
+    }
+
+    // Writes the position as a FEN string, the inverse of setPosition
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int emptySquares = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = mailbox[rank * 8 + file];
+                if (piece == EMPTY_SQUARE) {
+                    emptySquares++;
+                } else {
+                    if (emptySquares > 0) {
+                        sb.append((char) ('0' + emptySquares));
+                        emptySquares = 0;
+                    }
+                    sb.append(PIECE_CHARS.charAt(piece));
+                }
+            }
+            if (emptySquares > 0) {
+                sb.append((char) ('0' + emptySquares));
+            }
+            if (rank > 0) {
+                sb.append('/');
+            }
+        }
 
-        // Set side to move
-        whiteToMove = activeColor.equals("w");
+        sb.append(whiteToMove ? " w " : " b ");
 
-        // Set castling rights
-        whiteKingsideCastle = castlingRights.contains("K");
-        whiteQueensideCastle = castlingRights.contains("Q");
-        blackKingsideCastle = castlingRights.contains("k");
-        blackQueensideCastle = castlingRights.contains("q");
+        if (castlingRights == 0) {
+            sb.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) sb.append('K');
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) sb.append('Q');
+            if ((castlingRights & BLACK_KINGSIDE) != 0) sb.append('k');
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) sb.append('q');
+        }
 
-        // Set en passant square
-        if (epSquare.equals("-")) {
-            enPassantSquare = -1;
+        sb.append(' ');
+        if (enPassantSquare == -1) {
+            sb.append('-');
         } else {
-            int file_ep = epSquare.charAt(0) - 'a';
-            int rank_ep = epSquare.charAt(1) - '1';
-            enPassantSquare = rank_ep * 8 + file_ep;
+            sb.append((char) ('a' + enPassantSquare % 8)).append((char) ('1' + enPassantSquare / 8));
+        }
+
+        sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return sb.toString();
+    }
+
+    private static IllegalArgumentException invalidFen(String fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN '" + fen + "': " + reason);
+    }
+
+    // Fields are separated by exactly one space
+    private static int skipSeparator(String fen, int index) {
+        if (index >= fen.length() || fen.charAt(index) != ' ') {
+            throw invalidFen(fen, "missing field");
+        }
+        return index + 1;
+    }
+
+    private static int skipDigits(String fen, int index) {
+        while (index < fen.length() && fen.charAt(index) >= '0' && fen.charAt(index) <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int parseNumber(String fen, int start, int end, int max, String field) {
+        // More than 9 digits could overflow an int, and no valid value is that long
+        if (start == end || end - start > 9) {
+            throw invalidFen(fen, "bad " + field);
+        }
+        int value = Integer.parseInt(fen, start, end, 10);
+        if (value > max) {
+            throw invalidFen(fen, field + " is too large");
+        }
+        return value;
+    }
+
+    private static int castlingFlag(char c) {
+        switch (c) {
+            case 'K':
+                return WHITE_KINGSIDE;
+            case 'Q':
+                return WHITE_QUEENSIDE;
+            case 'k':
+                return BLACK_KINGSIDE;
+            case 'q':
+                return BLACK_QUEENSIDE;
+            default:
+                return 0;
         }
+    }
 
-        // Clear the board state history
-        boardStates.clear();
+    // Checks shared by every way of loading a position, returns the problem or null
+    private static String checkPieces(long[] newPieces) {
+        if (Long.bitCount(newPieces[WHITE_KING]) != 1 || Long.bitCount(newPieces[BLACK_KING]) != 1) {
+            return "each side needs exactly one king";
+        }
+        if (((newPieces[WHITE_PAWN] | newPieces[BLACK_PAWN]) & (BitboardConstants.RANK_1 | BitboardConstants.RANK_8)) != 0) {
+            return "pawns on the first or last rank";
+        }
+        return null;
+    }
+
+    // Castling moves the king and rook from their home squares, so a right without them there cannot be played
+    private static boolean castlingPiecesInPlace(long[] parsedPieces, int rights) {
+        long whiteKing = parsedPieces[WHITE_KING] & (1L << BitboardConstants.E1);
+        long blackKing = parsedPieces[BLACK_KING] & (1L << BitboardConstants.E8);
+        if ((rights & WHITE_KINGSIDE) != 0 && (whiteKing == 0 || (parsedPieces[WHITE_ROOK] & (1L << BitboardConstants.H1)) == 0)) return false;
+        if ((rights & WHITE_QUEENSIDE) != 0 && (whiteKing == 0 || (parsedPieces[WHITE_ROOK] & (1L << BitboardConstants.A1)) == 0)) return false;
+        if ((rights & BLACK_KINGSIDE) != 0 && (blackKing == 0 || (parsedPieces[BLACK_ROOK] & (1L << BitboardConstants.H8)) == 0)) return false;
+        if ((rights & BLACK_QUEENSIDE) != 0 && (blackKing == 0 || (parsedPieces[BLACK_ROOK] & (1L << BitboardConstants.A8)) == 0)) return false;
+        return true;
     }
 
     // Generate all legal moves for the current position
@@ -499,76 +994,243 @@ public class Board {
         return moveGenerator.generateLegalMoves(this);
     }
 
+    // Generate all legal moves into a caller-owned list, avoiding a Move object per move
+    public void generateLegalMoves(MoveList moves) {
+        new MoveGenerator().generateLegalMoves(this, moves);
+    }
+
+    // Check, mate and draw detection for the side to move. Only looks for a single legal move, and the
+    // result is kept until the position changes so repeated queries cost nothing.
+    public GameStatus getGameStatus() {
+        if (status == null) {
+            boolean inCheck = isInCheck();
+            if (isInsufficientMaterial()) {
+                // Neither side can mate any more, so there is no need to look at the moves
+                status = GameStatus.DRAW_INSUFFICIENT_MATERIAL;
+            } else if (!new MoveGenerator().hasLegalMove(this)) {
+                status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+            } else if (isThreefoldRepetition()) {
+                status = GameStatus.DRAW_REPETITION;
+            } else if (isFiftyMoveRule()) {
+                // Checked after mate, a move that mates on the hundredth halfmove still wins
+                status = GameStatus.DRAW_FIFTY_MOVES;
+            } else {
+                status = inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Every square attacked by the given side, computed set-wise and cached until the position changes.
+     * <p>
+     * The king of the other side is treated as transparent, so a slider's attack continues through it. That is
+     * exactly what king move generation needs (the king cannot step back along the ray of a checking slider) and
+     * it never changes whether the king's own square or any square in front of it is attacked. Evaluation terms
+     * reading this map should keep in mind that squares behind the king count as attacked.
+     */
+    public long attackedBy(boolean white) {
+        int side = white ? 0 : 1;
+        if ((attackMapsValid & (1 << side)) == 0) {
+            long otherKing = pieces[white ? BLACK_KING : WHITE_KING];
+            attackMaps[side] = MoveGenerator.getAttackedSquares(this, white, occupied & ~otherKing);
+            attackMapsValid |= 1 << side;
+        }
+        return attackMaps[side];
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    // Number of earlier positions with the same key as the current one. Only positions since the last capture or
+    // pawn move can match, and only every second one has the same side to move, so the scan is short.
+    public int getRepetitionCount() {
+        int count = 0;
+        int oldest = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 2; i >= oldest; i -= 2) {
+            if (undoHashes[i] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // The current position occurred at least once before, which is enough for a search to score it as a draw
+    public boolean isRepetition() {
+        return getRepetitionCount() > 0;
+    }
+
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 2;
+    }
+
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    // Dead positions by material alone: bare kings, a single minor piece, or only bishops that all stand on
+    // one color complex. Knight against knight or bishop against knight can still mate and are not included.
+    public boolean isInsufficientMaterial() {
+        long majorsAndPawns = pieces[WHITE_PAWN] | pieces[BLACK_PAWN] | pieces[WHITE_ROOK] | pieces[BLACK_ROOK]
+                | pieces[WHITE_QUEEN] | pieces[BLACK_QUEEN];
+        if (majorsAndPawns != 0) {
+            return false;
+        }
+
+        long knights = pieces[WHITE_KNIGHT] | pieces[BLACK_KNIGHT];
+        long bishops = pieces[WHITE_BISHOP] | pieces[BLACK_BISHOP];
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0
+                && ((bishops & BitboardConstants.DARK_SQUARES) == 0 || (bishops & BitboardConstants.LIGHT_SQUARES) == 0);
+    }
+
     public boolean isCheckmate() {
-        // Check if the current player is in check and has no legal moves
-        return isInCheck() && generateLegalMoves().isEmpty();
+        return getGameStatus() == GameStatus.CHECKMATE;
     }
 
-    private boolean isInCheck() {
-        long kingPosition = whiteToMove ? whiteKing : blackKing;
-        long opponentPieces = whiteToMove ? getBlackPieces() : getWhitePieces();
-        return MoveGenerator.isAttacked(kingPosition, opponentPieces, this);
+    public boolean isInCheck() {
+        return MoveGenerator.isKingInCheck(this, whiteToMove);
     }
 
     public boolean isStalemate() {
-        // Check if the current player is not in check and has no legal moves
-        return !isInCheck() && generateLegalMoves().isEmpty();
+        return getGameStatus() == GameStatus.STALEMATE;
     }
 
     /**
-     * Determines the type of chess move based on the board state and move details.
+     * Checks a single move for the side to move without generating the whole move list.
+     * <p>
+     * The move geometry is checked against the attack tables, then the occupancy after the move is simulated
+     * to see whether any enemy piece still reaches the king, which covers pins, checks and en passant
+     * discoveries in one test. Castling also checks the rights, the empty path and the transit squares.
      *
-     * @param board The current board state
      * @param from The source square (0-63)
      * @param to The destination square (0-63)
-     * @param promotionPiece Optional promotion piece type (0-3, corresponds to Move constants)
-     * @return The move type as defined in the Move class constants
+     * @param promotion The promotion piece (Move.KNIGHT_PROMOTION to Move.QUEEN_PROMOTION), only used when a pawn reaches the last rank
+     * @return The resolved move with its type filled in, or the reason it is illegal
      */
-    public static int determineMoveType(Board board, int from, int to, int promotionPiece) {
-        // Get bitboards for the source and destination squares
+    public MoveValidation isLegal(int from, int to, int promotion) {
+        if (from < 0 || from > 63 || to < 0 || to > 63) {
+            return MoveValidation.rejected(MoveValidation.Reason.INVALID_SQUARE);
+        }
+
+        int piece = mailbox[from];
+        if (piece == EMPTY_SQUARE) {
+            return MoveValidation.rejected(MoveValidation.Reason.NO_PIECE);
+        }
+        if ((piece < BLACK_PAWN) != whiteToMove) {
+            return MoveValidation.rejected(MoveValidation.Reason.NOT_YOUR_PIECE);
+        }
+
         long fromBB = 1L << from;
         long toBB = 1L << to;
+        long friendlyPieces = whiteToMove ? whitePieces : blackPieces;
+        if ((friendlyPieces & toBB) != 0) {
+            return MoveValidation.rejected(MoveValidation.Reason.OWN_PIECE_ON_TARGET);
+        }
 
-        // Check if the move is a capture
-        boolean isCapture = (board.getOccupied() & toBB) != 0;
+        boolean isCapture = mailbox[to] != EMPTY_SQUARE;
+        int moveType = isCapture ? Move.CAPTURE : Move.QUIET_MOVE;
+        int promotionPiece = 0;
+        long capturedBB = isCapture ? toBB : 0L;
+        long reachable;
+
+        switch (piece % 6) {
+            case WHITE_PAWN:
+                int pushDirection = whiteToMove ? 8 : -8;
+                int startRank = whiteToMove ? 1 : 6;
+                if (!isPawnMove(from, to, pushDirection, startRank, isCapture)) {
+                    return MoveValidation.rejected(MoveValidation.Reason.INVALID_GEOMETRY);
+                }
+                if (to == from + 2 * pushDirection) {
+                    moveType = Move.DOUBLE_PAWN_PUSH;
+                } else if (to == enPassantSquare && (MoveGenerator.getPawnAttacks(from, whiteToMove) & toBB) != 0) {
+                    moveType = Move.EN_PASSANT_CAPTURE;
+                    capturedBB = 1L << (to - pushDirection);
+                }
+                if (to / 8 == 7 || to / 8 == 0) {
+                    if (promotion < Move.KNIGHT_PROMOTION || promotion > Move.QUEEN_PROMOTION) {
+                        return MoveValidation.rejected(MoveValidation.Reason.INVALID_PROMOTION);
+                    }
+                    moveType = isCapture ? Move.PROMOTION_CAPTURE : Move.PROMOTION;
+                    promotionPiece = promotion;
+                }
+                reachable = toBB;
+                break;
+            case WHITE_KNIGHT:
+                reachable = MoveGenerator.getKnightAttacks(from);
+                break;
+            case WHITE_BISHOP:
+                reachable = MoveGenerator.getDiagonalAttacks(from, occupied);
+                break;
+            case WHITE_ROOK:
+                reachable = MoveGenerator.getStraightAttacks(from, occupied);
+                break;
+            case WHITE_QUEEN:
+                reachable = MoveGenerator.getQueenAttacks(from, occupied);
+                break;
+            default:
+                if (Math.abs(to - from) == 2 && to / 8 == from / 8) {
+                    return validateCastling(from, to);
+                }
+                reachable = MoveGenerator.getKingAttacks(from);
+                break;
+        }
 
-        // Identify the moving piece
-        char piece = board.getPieceChar(fromBB);
-        boolean isPawn = Character.toLowerCase(piece) == 'p';
-        boolean isKing = Character.toLowerCase(piece) == 'k';
+        if ((reachable & toBB) == 0) {
+            return MoveValidation.rejected(MoveValidation.Reason.INVALID_GEOMETRY);
+        }
 
-        // Check for pawn special moves
-        if (isPawn) {
-            // Promotion check - pawn reaches the 8th or 1st rank
-            boolean isPromotion = (to / 8 == 7) || (to / 8 == 0);
-            if (isPromotion) {
-                return isCapture ? Move.PROMOTION_CAPTURE : Move.PROMOTION;
-            }
+        // Play the move on the occupancy only and look for enemy pieces, minus the captured one, hitting the king
+        long occupiedAfter = (occupied & ~fromBB & ~capturedBB) | toBB;
+        int kingSquare = piece % 6 == WHITE_KING ? to : Long.numberOfTrailingZeros(pieces[whiteToMove ? WHITE_KING : BLACK_KING]);
+        if ((MoveGenerator.getAttackersTo(this, kingSquare, occupiedAfter, !whiteToMove) & ~capturedBB) != 0) {
+            return MoveValidation.rejected(MoveValidation.Reason.LEAVES_KING_IN_CHECK);
+        }
 
-            // Double pawn push - moving two squares from starting position
-            if (Math.abs(from - to) == 16) {
-                return Move.DOUBLE_PAWN_PUSH;
-            }
+        return MoveValidation.legal(Move.encode(from, to, moveType, promotionPiece));
+    }
 
-            // En passant capture - pawn captures diagonally but destination is empty
-            if (isCapture) {
-                return Move.CAPTURE;
-            } else if ((Math.abs(from % 8 - to % 8) == 1) && (Math.abs(from / 8 - to / 8) == 1)) {
-                return Move.EN_PASSANT_CAPTURE;
-            }
+    private boolean isPawnMove(int from, int to, int pushDirection, int startRank, boolean isCapture) {
+        if ((MoveGenerator.getPawnAttacks(from, whiteToMove) & (1L << to)) != 0) {
+            return isCapture || to == enPassantSquare;
+        }
+        if (isCapture) {
+            return false;
         }
+        if (to == from + pushDirection) {
+            return true;
+        }
+        return to == from + 2 * pushDirection && from / 8 == startRank && mailbox[from + pushDirection] == EMPTY_SQUARE;
+    }
 
-        // Check for castling
-        if (isKing && Math.abs(from % 8 - to % 8) == 2) {
-            return (to % 8 > from % 8) ? Move.KING_CASTLE : Move.QUEEN_CASTLE;
+    private MoveValidation validateCastling(int from, int to) {
+        boolean kingside = to > from;
+        int right = whiteToMove
+                ? (kingside ? WHITE_KINGSIDE : WHITE_QUEENSIDE)
+                : (kingside ? BLACK_KINGSIDE : BLACK_QUEENSIDE);
+        int homeSquare = whiteToMove ? BitboardConstants.E1 : BitboardConstants.E8;
+        if (from != homeSquare || (castlingRights & right) == 0) {
+            return MoveValidation.rejected(MoveValidation.Reason.CASTLING_NOT_ALLOWED);
         }
 
-        // Regular captures
-        if (isCapture) {
-            return Move.CAPTURE;
+        // The rook's path has to be empty, the king may not start on, pass through or land on an attacked square
+        long path = kingside ? 0x60L : 0x0EL;
+        long transit = kingside ? 0x70L : 0x1CL;
+        if (!whiteToMove) {
+            path <<= 56;
+            transit <<= 56;
+        }
+        if ((occupied & path) != 0 || (attackedBy(!whiteToMove) & transit) != 0) {
+            return MoveValidation.rejected(MoveValidation.Reason.CASTLING_NOT_ALLOWED);
         }
 
-        // Regular quiet move
-        return Move.QUIET_MOVE;
+        return MoveValidation.legal(Move.encode(from, to, kingside ? Move.KING_CASTLE : Move.QUEEN_CASTLE, 0));
     }
 }
@@ -0,0 +1,35 @@
+package chess.board;
+
+/**
+ * Outcome of a position from the point of view of the side to move.
+ */
+public enum GameStatus {
+    ONGOING(false, "Game in progress"),
+    CHECK(false, "Check"),
+    CHECKMATE(true, "Checkmate"),
+    STALEMATE(true, "Stalemate"),
+    DRAW_REPETITION(true, "Threefold repetition"),
+    DRAW_FIFTY_MOVES(true, "Fifty-move rule"),
+    DRAW_INSUFFICIENT_MATERIAL(true, "Insufficient material");
+
+    private final boolean gameOver;
+    private final String description;
+
+    GameStatus(boolean gameOver, String description) {
+        this.gameOver = gameOver;
+        this.description = description;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    // Game over without a winner
+    public boolean isDraw() {
+        return gameOver && this != CHECKMATE;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
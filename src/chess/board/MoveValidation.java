@@ -0,0 +1,65 @@
+package chess.board;
+
+import chess.move.Move;
+
+/**
+ * Result of validating a single move request: either the fully resolved move (type and promotion filled in)
+ * or the reason it was turned down.
+ */
+public final class MoveValidation {
+    public enum Reason {
+        INVALID_SQUARE("Square is off the board"),
+        NO_PIECE("There is no piece on that square"),
+        NOT_YOUR_PIECE("That piece belongs to the opponent"),
+        OWN_PIECE_ON_TARGET("Cannot capture your own piece"),
+        INVALID_GEOMETRY("That piece cannot move there"),
+        INVALID_PROMOTION("Invalid promotion piece"),
+        CASTLING_NOT_ALLOWED("Castling is not allowed"),
+        LEAVES_KING_IN_CHECK("Move leaves the king in check");
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final int move;
+    private final Reason reason;
+
+    private MoveValidation(int move, Reason reason) {
+        this.move = move;
+        this.reason = reason;
+    }
+
+    static MoveValidation legal(int move) {
+        return new MoveValidation(move, null);
+    }
+
+    static MoveValidation rejected(Reason reason) {
+        return new MoveValidation(Move.NO_MOVE, reason);
+    }
+
+    public boolean isLegal() {
+        return reason == null;
+    }
+
+    // The resolved move in packed int form, Move.NO_MOVE when rejected
+    public int getMove() {
+        return move;
+    }
+
+    // Null when the move is legal
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return isLegal() ? Move.toUci(move) : reason.getMessage();
+    }
+}
@@ -0,0 +1,155 @@
+package chess.board;
+
+/**
+ * Material and piece-square values for a tapered evaluation, in centipawns from white's point of view.
+ * <p>
+ * Every piece on a square is worth a midgame and an endgame score. Both are packed into one int, the endgame
+ * score in the upper 16 bits, so the Board keeps the sum of all pieces with a single add per piece change and
+ * the two halves are only split when the evaluation is read. The game phase runs from 24 with all minor and
+ * major pieces on the board (knight and bishop 1, rook 2, queen 4) down to 0 with none left.
+ */
+public final class PieceSquareTables {
+    public static final int MAX_PHASE = 24;
+
+    // Indexed by piece code * 64 + square (a1 = 0), black values negated; flat to save an indirection per lookup
+    static final int[] PACKED = new int[12 * 64];
+
+    // Indexed by piece code
+    static final int[] PHASE = {0, 1, 1, 2, 4, 0, 0, 1, 1, 2, 4, 0};
+
+    // Indexed by piece type, pawn to king
+    private static final int[] MIDGAME_VALUES = {82, 337, 365, 477, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {94, 281, 297, 512, 936, 0};
+
+    // Tables are laid out as seen from white with rank 8 on top, so white's square s is entry s ^ 56
+    private static final int[] PAWN_MIDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK_MIDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+
+    // Rook placement hardly matters once the board has emptied
+    private static final int[] ROOK_ENDGAME = new int[64];
+
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+
+    // Sheltered behind the pawns while the pieces are on, towards the centre once they are gone
+    private static final int[] KING_MIDGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[][] MIDGAME_TABLES = {PAWN_MIDGAME, KNIGHT, BISHOP, ROOK_MIDGAME, QUEEN, KING_MIDGAME};
+    private static final int[][] ENDGAME_TABLES = {PAWN_ENDGAME, KNIGHT, BISHOP, ROOK_ENDGAME, QUEEN, KING_ENDGAME};
+
+    static {
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                // Black's square s is white's square s ^ 56, which is entry s in the rank-8-first layout
+                int whiteMidgame = MIDGAME_VALUES[type] + MIDGAME_TABLES[type][square ^ 56];
+                int whiteEndgame = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square ^ 56];
+                int blackMidgame = MIDGAME_VALUES[type] + MIDGAME_TABLES[type][square];
+                int blackEndgame = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square];
+                PACKED[type * 64 + square] = pack(whiteMidgame, whiteEndgame);
+                PACKED[(type + 6) * 64 + square] = pack(-blackMidgame, -blackEndgame);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    public static int pack(int midgame, int endgame) {
+        return (endgame << 16) + midgame;
+    }
+
+    public static int midgame(int packed) {
+        return (short) packed;
+    }
+
+    // Rounds the upper half back up when the lower half is negative, which borrowed one from it when packing
+    public static int endgame(int packed) {
+        return (packed + 0x8000) >> 16;
+    }
+
+    // Blends the two scores by the phase, clamped because promotions can push it above the starting value
+    public static int taper(int packed, int phase) {
+        int midgamePhase = Math.min(phase, MAX_PHASE);
+        return (midgame(packed) * midgamePhase + endgame(packed) * (MAX_PHASE - midgamePhase)) / MAX_PHASE;
+    }
+}
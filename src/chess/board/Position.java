@@ -0,0 +1,110 @@
+package chess.board;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a position: the piece bitboards, side to move, castling rights, en passant square,
+ * move counters and Zobrist key.
+ * <p>
+ * A snapshot is taken with {@link Board#snapshot()} and can be handed to other threads without locking, since
+ * nothing in it changes after construction. {@link #toBoard()} turns it back into a Board for analysis.
+ */
+public final class Position {
+    private final long[] pieces;
+    private final boolean whiteToMove;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long hash;
+
+    Position(long[] pieces, boolean whiteToMove, int castlingRights, int enPassantSquare,
+             int halfmoveClock, int fullmoveNumber, long hash) {
+        this.pieces = pieces.clone();
+        this.whiteToMove = whiteToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.hash = hash;
+    }
+
+    // Bitboard of one piece type, indexed by the Board piece constants
+    public long getPieces(int piece) {
+        return pieces[piece];
+    }
+
+    // The Board piece constant on the square, Board.EMPTY_SQUARE when it is empty
+    public int getPieceAt(int square) {
+        long squareBB = 1L << square;
+        for (int piece = Board.WHITE_PAWN; piece <= Board.BLACK_KING; piece++) {
+            if ((pieces[piece] & squareBB) != 0) {
+                return piece;
+            }
+        }
+        return Board.EMPTY_SQUARE;
+    }
+
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    // A new Board set up at this position, without any move history
+    public Board toBoard() {
+        Board board = new Board();
+        board.loadPosition(pieces, whiteToMove, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+        return board;
+    }
+
+    public String toFen() {
+        return toBoard().toFen();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Position)) {
+            return false;
+        }
+        Position other = (Position) o;
+        return hash == other.hash
+                && whiteToMove == other.whiteToMove
+                && castlingRights == other.castlingRights
+                && enPassantSquare == other.enPassantSquare
+                && halfmoveClock == other.halfmoveClock
+                && fullmoveNumber == other.fullmoveNumber
+                && Arrays.equals(pieces, other.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -0,0 +1,47 @@
+package chess.board;
+
+/**
+ * Random keys for Zobrist hashing. A position key is the XOR of the keys of every piece on its square,
+ * the current castling rights, the en passant file and the side to move, so a move only has to XOR the
+ * keys of what it changes. The keys come from a fixed seed and are identical on every run.
+ */
+public final class Zobrist {
+    // Indexed by piece code and square
+    static final long[][] PIECE_SQUARE = new long[12][64];
+
+    // Indexed by the 4-bit castling rights mask
+    static final long[] CASTLING = new long[16];
+
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    // XORed in when black is to move
+    static final long SIDE_TO_MOVE;
+
+    private static long seed = 0x9E3779B97F4A7C15L;
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = nextRandom();
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING[rights] = nextRandom();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = nextRandom();
+        }
+        SIDE_TO_MOVE = nextRandom();
+    }
+
+    private Zobrist() {
+    }
+
+    // SplitMix64, good enough spread for hash keys
+    private static long nextRandom() {
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,228 @@
+package chess.move;
+
+/**
+ * Magic bitboard lookup tables for the sliding pieces.
+ * <p>
+ * For every square the relevant blockers (the ray squares without the board edge) are multiplied by a
+ * magic number and the top bits of the product index a table holding the precomputed attack set. The
+ * tables are filled once when the class is loaded. The ray-casting loops are kept to fill the tables and
+ * as the reference implementation that {@link #verify()} checks the lookups against.
+ */
+public final class MagicBitboards {
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    // Collision-free multipliers for the indexing scheme below, one per square starting at a1
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0008040088020130L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0000800400800200L, 0x9281800100808200L, 0x8004048102000854L,
+            0x4420802040008006L, 0x0880500020004002L, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x1010220204082A00L, 0x80E0020202002804L, 0x2008480104200020L, 0x000220920280002DL,
+            0x32040421000B0284L, 0x1002080404000400L, 0x0004160892080040L, 0x2203024206204201L,
+            0x0002404264010200L, 0x1120908408428124L, 0xB100424403002280L, 0x240008060440C288L,
+            0x2040040420490400L, 0x0100620210040022L, 0x0400084104202028L, 0x0010050080908820L,
+            0x0C90A04490824802L, 0x000200A008210130L, 0x0C08001000204010L, 0x0008000186014480L,
+            0x0601044820080021L, 0x0002000101013100L, 0x1400A08108080204L, 0x0250401104485410L,
+            0x4820240810142843L, 0x0009142A20182200L, 0x0848140048440020L, 0x2020120000400440L,
+            0x0108840200802003L, 0x0009070082009492L, 0x020C0C0038424245L, 0xCA44005808210410L,
+            0x8011212000500404L, 0x2028840510101008L, 0x0004042A00041400L, 0x0624020080980080L,
+            0x1820410040840040L, 0x2201004202050100L, 0x402A088A24040224L, 0x0242061040002400L,
+            0x90020202400821A0L, 0x00C9009004E01002L, 0x58C2060202023100L, 0x0000012214040800L,
+            0x0210846810100200L, 0x0004208081010200L, 0x01A4108404442100L, 0x8054082C80280106L,
+            0x0004144904104208L, 0x00324C0A11104000L, 0x1000020231040100L, 0x2080001042020004L,
+            0x0544021020288104L, 0x1103501408083020L, 0x4010451004960002L, 0x003010091C44902CL,
+            0x0102402884202000L, 0x0480804C00841086L, 0x04602C8602210400L, 0x0000004000420200L,
+            0x0040000020442C18L, 0x4483804089094100L, 0x80000B0248020400L, 0x0045010808008680L
+    };
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASKS[square] = rookMask(square);
+            BISHOP_MASKS[square] = bishopMask(square);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_ATTACKS[square] = new long[1 << Long.bitCount(ROOK_MASKS[square])];
+            BISHOP_ATTACKS[square] = new long[1 << Long.bitCount(BISHOP_MASKS[square])];
+            fillTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square], ROOK_ATTACKS[square], false);
+            fillTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square], BISHOP_ATTACKS[square], true);
+        }
+    }
+
+    private MagicBitboards() {
+    }
+
+    public static long getRookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    public static long getBishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    // Relevant blocker squares, i.e. the rays of the piece on an empty board without the last square of each ray
+    public static long getRookMask(int square) {
+        return ROOK_MASKS[square];
+    }
+
+    public static long getBishopMask(int square) {
+        return BISHOP_MASKS[square];
+    }
+
+    /**
+     * Compares the magic lookups with the ray-casting loops for every square and every subset of its relevant
+     * blockers, once as is and once with all squares outside the mask occupied as well, which the lookup has
+     * to ignore. Mismatches are printed.
+     *
+     * @return The number of mismatching lookups, 0 when the tables are correct
+     */
+    public static int verify() {
+        int mismatches = 0;
+        for (int square = 0; square < 64; square++) {
+            mismatches += verifySquare(square, ROOK_MASKS[square], false);
+            mismatches += verifySquare(square, BISHOP_MASKS[square], true);
+        }
+        return mismatches;
+    }
+
+    private static int verifySquare(int square, long mask, boolean diagonal) {
+        int mismatches = 0;
+        long subset = 0L;
+        do {
+            for (long occupied : new long[]{subset, subset | ~mask}) {
+                long expected = diagonal ? diagonalRayAttacks(square, occupied) : straightRayAttacks(square, occupied);
+                long actual = diagonal ? getBishopAttacks(square, occupied) : getRookAttacks(square, occupied);
+                if (actual != expected) {
+                    mismatches++;
+                    System.out.printf("%s on square %d, occupied %016X: magic %016X, rays %016X%n",
+                            diagonal ? "Bishop" : "Rook", square, occupied, actual, expected);
+                }
+            }
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        return mismatches;
+    }
+
+    private static void fillTable(int square, long mask, long magic, int shift, long[] table, boolean diagonal) {
+        // Enumerate every subset of the mask (Carry-Rippler trick) and store its attack set
+        long subset = 0L;
+        do {
+            int index = (int) ((subset * magic) >>> shift);
+            table[index] = diagonal ? diagonalRayAttacks(square, subset) : straightRayAttacks(square, subset);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    private static long rookMask(int square) {
+        long mask = 0L;
+        int rank = square / 8;
+        int file = square % 8;
+
+        for (int r = rank + 1; r < 7; r++) mask |= 1L << (r * 8 + file);
+        for (int r = rank - 1; r > 0; r--) mask |= 1L << (r * 8 + file);
+        for (int f = file + 1; f < 7; f++) mask |= 1L << (rank * 8 + f);
+        for (int f = file - 1; f > 0; f--) mask |= 1L << (rank * 8 + f);
+
+        return mask;
+    }
+
+    private static long bishopMask(int square) {
+        long edges = 0xFF818181818181FFL;
+        return diagonalRayAttacks(square, 0L) & ~edges;
+    }
+
+    // Reference ray-casting implementation, walks each diagonal until the first blocker
+    static long diagonalRayAttacks(int square, long occupied) {
+        long attacks = 0L;
+        int rank = square / 8;
+        int file = square % 8;
+
+        // Northeast direction
+        for (int r = rank + 1, f = file + 1; r < 8 && f < 8; r++, f++) {
+            long targetBit = 1L << (r * 8 + f);
+            attacks |= targetBit;
+            if ((occupied & targetBit) != 0) break;
+        }
+
+        // Northwest direction
+        for (int r = rank + 1, f = file - 1; r < 8 && f >= 0; r++, f--) {
+            long targetBit = 1L << (r * 8 + f);
+            attacks |= targetBit;
+            if ((occupied & targetBit) != 0) break;
+        }
+
+        // Southeast direction
+        for (int r = rank - 1, f = file + 1; r >= 0 && f < 8; r--, f++) {
+            long targetBit = 1L << (r * 8 + f);
+            attacks |= targetBit;
+            if ((occupied & targetBit) != 0) break;
+        }
+
+        // Southwest direction
+        for (int r = rank - 1, f = file - 1; r >= 0 && f >= 0; r--, f--) {
+            long targetBit = 1L << (r * 8 + f);
+            attacks |= targetBit;
+            if ((occupied & targetBit) != 0) break;
+        }
+
+        return attacks;
+    }
+
+    // Reference ray-casting implementation, walks each rank and file until the first blocker
+    static long straightRayAttacks(int square, long occupied) {
+        long attacks = 0L;
+        int rank = square / 8;
+        int file = square % 8;
+
+        // North
+        for (int r = rank + 1; r < 8; r++) {
+            int s = r * 8 + file;
+            attacks |= (1L << s);
+            if ((occupied & (1L << s)) != 0) break;
+        }
+
+        // South
+        for (int r = rank - 1; r >= 0; r--) {
+            int s = r * 8 + file;
+            attacks |= (1L << s);
+            if ((occupied & (1L << s)) != 0) break;
+        }
+
+        // East
+        for (int f = file + 1; f < 8; f++) {
+            int s = rank * 8 + f;
+            attacks |= (1L << s);
+            if ((occupied & (1L << s)) != 0) break;
+        }
+
+        // West
+        for (int f = file - 1; f >= 0; f--) {
+            int s = rank * 8 + f;
+            attacks |= (1L << s);
+            if ((occupied & (1L << s)) != 0) break;
+        }
+
+        return attacks;
+    }
+}
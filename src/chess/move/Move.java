@@ -1,5 +1,8 @@
 package chess.move;
 
+import chess.board.Board;
+import chess.board.MoveValidation;
+
 public class Move {
     // Move types
     public static final int QUIET_MOVE = 0;
@@ -17,6 +20,10 @@ public class Move {
     public static final int ROOK_PROMOTION = 2;
     public static final int QUEEN_PROMOTION = 3;
 
+    // Moves are also passed around as packed ints, using the same layout as hashCode:
+    // bits 0-5 hold the from square, bits 6-11 the to square, bits 12-14 the move type and bits 15-16 the promotion piece
+    public static final int NO_MOVE = 0;  // a1 to a1 can never be generated
+
     // Object constants
     private final int from;
     private final int to;
@@ -38,6 +45,95 @@ public class Move {
         this.promotionPiece = promotionPiece;
     }
 
+    public static int encode(int from, int to, int moveType, int promotionPiece) {
+        return from | (to << 6) | (moveType << 12) | (promotionPiece << 15);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int moveType(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static int promotionPiece(int move) {
+        return (move >>> 15) & 0x3;
+    }
+
+    public static boolean isCapture(int move) {
+        int moveType = moveType(move);
+        return moveType == CAPTURE || moveType == EN_PASSANT_CAPTURE || moveType == PROMOTION_CAPTURE;
+    }
+
+    public static boolean isPromotion(int move) {
+        return moveType(move) >= PROMOTION;
+    }
+
+    public static Move decode(int move) {
+        return new Move(from(move), to(move), moveType(move), promotionPiece(move));
+    }
+
+    // Coordinate notation as used by UCI, e.g. "e2e4" or "e7e8q"
+    public static String toUci(int move) {
+        int from = from(move);
+        int to = to(move);
+
+        StringBuilder sb = new StringBuilder(5);
+        sb.append((char) ('a' + from % 8)).append((char) ('1' + from / 8));
+        sb.append((char) ('a' + to % 8)).append((char) ('1' + to / 8));
+        if (isPromotion(move)) {
+            sb.append("nbrq".charAt(promotionPiece(move)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads coordinate notation for the side to move and resolves the move type from the board. A pawn reaching
+     * the last rank without a promotion letter promotes to a queen.
+     *
+     * @return The legal move in packed int form
+     * @throws IllegalArgumentException if the text is not coordinate notation or the move is illegal
+     */
+    public static int parseUci(Board board, String text) {
+        if (!isUciFormat(text)) {
+            throw new IllegalArgumentException("Invalid move: " + text);
+        }
+
+        int from = (text.charAt(1) - '1') * 8 + (text.charAt(0) - 'a');
+        int to = (text.charAt(3) - '1') * 8 + (text.charAt(2) - 'a');
+        int promotion = text.length() == 5 ? "nbrq".indexOf(Character.toLowerCase(text.charAt(4))) : QUEEN_PROMOTION;
+
+        MoveValidation validation = board.isLegal(from, to, promotion);
+        if (!validation.isLegal()) {
+            throw new IllegalArgumentException("Illegal move " + text + ": " + validation.getReason().getMessage());
+        }
+        return validation.getMove();
+    }
+
+    // True for text shaped like "e2e4" or "e7e8q", whether or not the move is legal
+    public static boolean isUciFormat(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            char c = text.charAt(i);
+            boolean valid = i % 2 == 0 ? (c >= 'a' && c <= 'h') : (c >= '1' && c <= '8');
+            if (!valid) {
+                return false;
+            }
+        }
+        return text.length() == 4 || "nbrqNBRQ".indexOf(text.charAt(4)) >= 0;
+    }
+
+    public int encode() {
+        return encode(from, to, moveType, promotionPiece);
+    }
+
     public int getFrom() {
         return from;
     }
@@ -105,6 +201,6 @@ public class Move {
 
     @Override
     public int hashCode() {
-        return (from) | (to << 6) | (moveType << 12) | (promotionPiece << 15);
+        return encode();
     }
 }
@@ -3,195 +3,203 @@ package chess.move;
 import chess.board.BitboardConstants;
 import chess.board.Board;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class MoveGenerator {
-    public static boolean isAttacked(long kingPosition, long opponentPieces, Board board) {
-        // Get the king square index (0-63)
-        int kingSquare = Long.numberOfTrailingZeros(kingPosition);
-
-        // Determine if attacker is white based on the king's color
-        boolean byWhite = (board.getBlackKing() & kingPosition) != 0;
-
-        // Check pawn attacks
-        long pawns = byWhite ? board.getWhitePawns() : board.getBlackPawns();
-        pawns &= opponentPieces; // Ensure we only consider opponent pawns
-
-        if (byWhite) {
-            // White pawns attack downward
-            if ((((kingPosition >> 9) & BitboardConstants.NOT_FILE_H) & pawns) != 0 ||
-                    (((kingPosition >> 7) & BitboardConstants.NOT_FILE_A) & pawns) != 0) {
-                return true;
-            }
-        } else {
-            // Black pawns attack upward
-            if ((((kingPosition << 9) & BitboardConstants.NOT_FILE_A) & pawns) != 0 ||
-                    (((kingPosition << 7) & BitboardConstants.NOT_FILE_H) & pawns) != 0) {
-                return true;
+    // Attack tables for the leaper pieces, filled once when the class is loaded
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+
+    // Pawn capture tables, index 0 holds the white pawn attacks and index 1 the black pawn attacks
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Squares strictly between two squares on a shared rank, file or diagonal, and the whole line through them
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // Move subsets for the staged generator. Captures include every promotion and en passant,
+    // quiets are the remaining moves including castling.
+    public static final int GEN_ALL = 0;
+    public static final int GEN_CAPTURES = 1;
+    public static final int GEN_QUIETS = 2;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = computeKnightAttacks(square);
+            KING_ATTACKS[square] = computeKingAttacks(square);
+            PAWN_ATTACKS[0][square] = computePawnAttacks(square, true);
+            PAWN_ATTACKS[1][square] = computePawnAttacks(square, false);
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long bothBB = (1L << a) | (1L << b);
+                if (a == b) {
+                    continue;
+                }
+                if ((getDiagonalAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = getDiagonalAttacks(a, 1L << b) & getDiagonalAttacks(b, 1L << a);
+                    LINE[a][b] = (getDiagonalAttacks(a, 0L) & getDiagonalAttacks(b, 0L)) | bothBB;
+                } else if ((getStraightAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = getStraightAttacks(a, 1L << b) & getStraightAttacks(b, 1L << a);
+                    LINE[a][b] = (getStraightAttacks(a, 0L) & getStraightAttacks(b, 0L)) | bothBB;
+                }
             }
         }
-
-        // Check knight attacks
-        long knights = byWhite ? board.getWhiteKnights() : board.getBlackKnights();
-        knights &= opponentPieces;
-        MoveGenerator generator = new MoveGenerator(); // Need instance for non-static methods
-        if ((generator.getKnightAttacks(kingSquare) & knights) != 0) {
-            return true;
-        }
-
-        // Check king attacks (for adjacent kings)
-        long opposingKing = byWhite ? board.getWhiteKing() : board.getBlackKing();
-        if ((generator.getKingAttacks(kingSquare) & opposingKing) != 0) {
-            return true;
-        }
-
-        // Get all occupied squares for sliding piece calculations
-        long occupied = board.getOccupied();
-
-        // Check bishop and queen diagonal attacks
-        long bishops = byWhite ? board.getWhiteBishops() : board.getBlackBishops();
-        long queens = byWhite ? board.getWhiteQueens() : board.getBlackQueens();
-        long diagonalAttackers = (bishops | queens) & opponentPieces;
-
-        if ((generator.getDiagonalAttacks(kingSquare, occupied) & diagonalAttackers) != 0) {
-            return true;
-        }
-
-        // Check rook and queen straight attacks
-        long rooks = byWhite ? board.getWhiteRooks() : board.getBlackRooks();
-        long straightAttackers = (rooks | queens) & opponentPieces;
-
-        if ((generator.getStraightAttacks(kingSquare, occupied) & straightAttackers) != 0) {
-            return true;
-        }
-
-        // No attacks found
-        return false;
     }
 
-    public long getKingAttacks(int square) {
+    private static long computeKingAttacks(int square) {
         long king = 1L << square;
         long attacks = 0L;
 
         // Generate king attacks in all 8 directions
         attacks |= ((king << 8));                                   // North
-        attacks |= ((king >> 8));                                   // South
+        attacks |= ((king >>> 8));                                  // South
         attacks |= ((king << 1) & BitboardConstants.NOT_FILE_H);    // East
-        attacks |= ((king >> 1) & BitboardConstants.NOT_FILE_A);    // West
+        attacks |= ((king >>> 1) & BitboardConstants.NOT_FILE_A);   // West
         attacks |= ((king << 9) & BitboardConstants.NOT_FILE_H);    // Northeast
         attacks |= ((king << 7) & BitboardConstants.NOT_FILE_A);    // Northwest
-        attacks |= ((king >> 7) & BitboardConstants.NOT_FILE_H);    // Southeast
-        attacks |= ((king >> 9) & BitboardConstants.NOT_FILE_A);    // Southwest
+        attacks |= ((king >>> 7) & BitboardConstants.NOT_FILE_H);   // Southeast
+        attacks |= ((king >>> 9) & BitboardConstants.NOT_FILE_A);   // Southwest
 
         return attacks;
     }
 
-    public long getKnightAttacks(int square) {
+    private static long computeKnightAttacks(int square) {
         long knight = 1L << square;
         long attacks = 0L;
 
         attacks |= ((knight << 17) & BitboardConstants.NOT_FILE_H);  // Up 2, Left 1
         attacks |= ((knight << 15) & BitboardConstants.NOT_FILE_A);  // Up 2, Right 1
-        attacks |= ((knight >> 17) & BitboardConstants.NOT_FILE_A);  // Down 2, Right 1
-        attacks |= ((knight >> 15) & BitboardConstants.NOT_FILE_H);  // Down 2, Left 1
+        attacks |= ((knight >>> 17) & BitboardConstants.NOT_FILE_A); // Down 2, Right 1
+        attacks |= ((knight >>> 15) & BitboardConstants.NOT_FILE_H); // Down 2, Left 1
         attacks |= ((knight << 10) & BitboardConstants.NOT_FILE_GH); // Up 1, Left 2
         attacks |= ((knight << 6)  & BitboardConstants.NOT_FILE_AB); // Up 1, Right 2
-        attacks |= ((knight >> 10) & BitboardConstants.NOT_FILE_AB); // Down 1, Right 2
-        attacks |= ((knight >> 6)  & BitboardConstants.NOT_FILE_GH); // Down 1, Left 2
+        attacks |= ((knight >>> 10) & BitboardConstants.NOT_FILE_AB); // Down 1, Right 2
+        attacks |= ((knight >>> 6)  & BitboardConstants.NOT_FILE_GH); // Down 1, Left 2
 
         return attacks;
     }
 
-    // Right now, this is using ray-casting, I will learn magic bitboards and optimize this.
-    public long getDiagonalAttacks(int square, long occupied) {
-        long attacks = 0L;
-        int rank = square / 8;
-        int file = square % 8;
+    private static long computePawnAttacks(int square, boolean isWhite) {
+        long pawn = 1L << square;
 
-        // Northeast direction
-        for (int r = rank + 1, f = file + 1; r < 8 && f < 8; r++, f++) {
-            int targetSquare = r * 8 + f;
-            long targetBit = 1L << targetSquare;
-            attacks |= targetBit;
-
-            if ((occupied & targetBit) != 0) break;
+        if (isWhite) {
+            return ((pawn << 9) & BitboardConstants.NOT_FILE_H) | ((pawn << 7) & BitboardConstants.NOT_FILE_A);
         }
+        return ((pawn >>> 7) & BitboardConstants.NOT_FILE_H) | ((pawn >>> 9) & BitboardConstants.NOT_FILE_A);
+    }
 
-        // Northwest direction
-        for (int r = rank + 1, f = file - 1; r < 8 && f >= 0; r++, f--) {
-            int targetSquare = r * 8 + f;
-            long targetBit = 1L << targetSquare;
-            attacks |= targetBit;
-
-            if ((occupied & targetBit) != 0) break;
-        }
+    public static long getKingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
 
-        // Southeast direction
-        for (int r = rank - 1, f = file + 1; r >= 0 && f < 8; r--, f++) {
-            int targetSquare = r * 8 + f;
-            long targetBit = 1L << targetSquare;
-            attacks |= targetBit;
+    public static long getKnightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
 
-            if ((occupied & targetBit) != 0) break;
-        }
+    // Squares a pawn of the given color standing on this square captures on
+    public static long getPawnAttacks(int square, boolean isWhite) {
+        return PAWN_ATTACKS[isWhite ? 0 : 1][square];
+    }
 
-        // Southwest direction
-        for (int r = rank - 1, f = file - 1; r >= 0 && f >= 0; r--, f--) {
-            int targetSquare = r * 8 + f;
-            long targetBit = 1L << targetSquare;
-            attacks |= targetBit;
+    public static long getBetween(int from, int to) {
+        return BETWEEN[from][to];
+    }
 
-            if ((occupied & targetBit) != 0) break;
-        }
+    public static long getLine(int from, int to) {
+        return LINE[from][to];
+    }
 
-        return attacks;
+    // Pieces of the given color attacking the square, with sliders blocked by the given occupancy
+    public static long getAttackersTo(Board board, int square, long occupied, boolean byWhite) {
+        long pawns = byWhite ? board.getWhitePawns() : board.getBlackPawns();
+        long knights = byWhite ? board.getWhiteKnights() : board.getBlackKnights();
+        long king = byWhite ? board.getWhiteKing() : board.getBlackKing();
+        long queens = byWhite ? board.getWhiteQueens() : board.getBlackQueens();
+        long bishopsAndQueens = (byWhite ? board.getWhiteBishops() : board.getBlackBishops()) | queens;
+        long rooksAndQueens = (byWhite ? board.getWhiteRooks() : board.getBlackRooks()) | queens;
+
+        return (getPawnAttacks(square, !byWhite) & pawns)
+                | (getKnightAttacks(square) & knights)
+                | (getKingAttacks(square) & king)
+                | (getDiagonalAttacks(square, occupied) & bishopsAndQueens)
+                | (getStraightAttacks(square, occupied) & rooksAndQueens);
     }
 
-    // Right now, this is using ray-casting, I will learn magic bitboards and optimize this.
-    public long getStraightAttacks(int square, long occupied) {
-        long attacks = 0L;
-        int rank = square / 8;
-        int file = square % 8;
+    // Every square attacked by the given color, with sliders blocked by the given occupancy
+    public static long getAttackedSquares(Board board, boolean byWhite, long occupied) {
+        long pawns = byWhite ? board.getWhitePawns() : board.getBlackPawns();
+        long attacks = byWhite
+                ? ((pawns << 9) & BitboardConstants.NOT_FILE_H) | ((pawns << 7) & BitboardConstants.NOT_FILE_A)
+                : ((pawns >>> 7) & BitboardConstants.NOT_FILE_H) | ((pawns >>> 9) & BitboardConstants.NOT_FILE_A);
 
-        // North
-        for (int r = rank + 1; r < 8; r++) {
-            int s = r * 8 + file;
-            attacks |= (1L << s);
-            if ((occupied & (1L << s)) != 0) break;
+        long knights = byWhite ? board.getWhiteKnights() : board.getBlackKnights();
+        while (knights != 0) {
+            attacks |= getKnightAttacks(Long.numberOfTrailingZeros(knights));
+            knights &= knights - 1;
         }
 
-        // South
-        for (int r = rank - 1; r >= 0; r--) {
-            int s = r * 8 + file;
-            attacks |= (1L << s);
-            if ((occupied & (1L << s)) != 0) break;
+        long queens = byWhite ? board.getWhiteQueens() : board.getBlackQueens();
+        long bishopsAndQueens = (byWhite ? board.getWhiteBishops() : board.getBlackBishops()) | queens;
+        while (bishopsAndQueens != 0) {
+            attacks |= getDiagonalAttacks(Long.numberOfTrailingZeros(bishopsAndQueens), occupied);
+            bishopsAndQueens &= bishopsAndQueens - 1;
         }
 
-        // East
-        for (int f = file + 1; f < 8; f++) {
-            int s = rank * 8 + f;
-            attacks |= (1L << s);
-            if ((occupied & (1L << s)) != 0) break;
+        long rooksAndQueens = (byWhite ? board.getWhiteRooks() : board.getBlackRooks()) | queens;
+        while (rooksAndQueens != 0) {
+            attacks |= getStraightAttacks(Long.numberOfTrailingZeros(rooksAndQueens), occupied);
+            rooksAndQueens &= rooksAndQueens - 1;
         }
 
-        // West
-        for (int f = file - 1; f >= 0; f--) {
-            int s = rank * 8 + f;
-            attacks |= (1L << s);
-            if ((occupied & (1L << s)) != 0) break;
+        long king = byWhite ? board.getWhiteKing() : board.getBlackKing();
+        if (king != 0) {
+            attacks |= getKingAttacks(Long.numberOfTrailingZeros(king));
         }
 
         return attacks;
     }
 
-    public long getQueenAttacks(int square, long occupied) {
+    // Friendly pieces that are the only blocker between their king and an enemy slider
+    public static long getPinnedPieces(Board board, boolean isWhite) {
+        int kingSquare = Long.numberOfTrailingZeros(isWhite ? board.getWhiteKing() : board.getBlackKing());
+        long occupied = board.getOccupied();
+        long friendlyPieces = isWhite ? board.getWhitePieces() : board.getBlackPieces();
+        long enemyQueens = isWhite ? board.getBlackQueens() : board.getWhiteQueens();
+
+        // Enemy sliders that would hit the king on an empty board
+        long snipers = (getDiagonalAttacks(kingSquare, 0L) & ((isWhite ? board.getBlackBishops() : board.getWhiteBishops()) | enemyQueens))
+                | (getStraightAttacks(kingSquare, 0L) & ((isWhite ? board.getBlackRooks() : board.getWhiteRooks()) | enemyQueens));
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniperSquare = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+
+            long blockers = BETWEEN[kingSquare][sniperSquare] & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & friendlyPieces;
+            }
+        }
+        return pinned;
+    }
+
+    // Sliding attacks are looked up from the magic bitboard tables
+    public static long getDiagonalAttacks(int square, long occupied) {
+        return MagicBitboards.getBishopAttacks(square, occupied);
+    }
+
+    public static long getStraightAttacks(int square, long occupied) {
+        return MagicBitboards.getRookAttacks(square, occupied);
+    }
+
+    public static long getQueenAttacks(int square, long occupied) {
         return getDiagonalAttacks(square, occupied) | getStraightAttacks(square, occupied);
     }
 
     // Function to generate all the knight moves
-    public List<Move> generateKnightMoves(Board board, boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
+    public void generateKnightMoves(Board board, boolean isWhite, MoveList moves) {
 
         // These are the knights from our side
         long knights = isWhite ? board.getWhiteKnights() : board.getBlackKnights();
@@ -226,22 +234,20 @@ public class MoveGenerator {
                 // Now, we determine if this is a capture move or a quiet move
                 if (((1L << toSquare) & enemyPieces) != 0) {
                     // This is a capture move
-                    moves.add(new Move(fromSquare, toSquare, Move.CAPTURE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
                 } else {
                     // This is a quiet move
-                    moves.add(new Move(fromSquare, toSquare, Move.QUIET_MOVE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
                 }
             }
         }
 
-        return moves;
     }
 
     // I will not be commenting that much from now on, as the logic behind the steps would be exactly the same as the knight one
 
     // Function to generate all the bishop moves
-    public List<Move> generateBishopMoves(Board board, boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
+    public void generateBishopMoves(Board board, boolean isWhite, MoveList moves) {
 
         long bishops = isWhite ? board.getWhiteBishops() : board.getBlackBishops();
 
@@ -261,18 +267,16 @@ public class MoveGenerator {
                 attacks &= attacks - 1;
 
                 if (((1L << toSquare) & enemyPieces) != 0) {
-                    moves.add(new Move(fromSquare, toSquare, Move.CAPTURE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
                 } else {
-                    moves.add(new Move(fromSquare, toSquare, Move.QUIET_MOVE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
                 }
             }
         }
 
-        return moves;
     }
 
-    public List<Move> generateRookMoves(Board board, boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
+    public void generateRookMoves(Board board, boolean isWhite, MoveList moves) {
 
         long rooks = isWhite ? board.getWhiteRooks() : board.getBlackRooks();
 
@@ -292,18 +296,16 @@ public class MoveGenerator {
                 attacks &= attacks - 1;
 
                 if (((1L << toSquare) & enemyPieces) != 0) {
-                    moves.add(new Move(fromSquare, toSquare, Move.CAPTURE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
                 } else {
-                    moves.add(new Move(fromSquare, toSquare, Move.QUIET_MOVE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
                 }
             }
         }
 
-        return moves;
     }
 
-    public List<Move> generateQueenMoves(Board board, boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
+    public void generateQueenMoves(Board board, boolean isWhite, MoveList moves) {
 
         long queens = isWhite ? board.getWhiteQueens() : board.getBlackQueens();
 
@@ -323,18 +325,16 @@ public class MoveGenerator {
                 attacks &= attacks - 1;
 
                 if (((1L << toSquare) & enemyPieces) != 0) {
-                    moves.add(new Move(fromSquare, toSquare, Move.CAPTURE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
                 } else {
-                    moves.add(new Move(fromSquare, toSquare, Move.QUIET_MOVE));
+                    moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
                 }
             }
         }
 
-        return moves;
     }
 
-    public List<Move> generateKingMoves(Board board, boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
+    public void generateKingMoves(Board board, boolean isWhite, MoveList moves) {
 
         long king = isWhite ? board.getWhiteKing() : board.getBlackKing();
         int kingSquare = Long.numberOfTrailingZeros(king);
@@ -351,63 +351,44 @@ public class MoveGenerator {
             attacks &= attacks - 1;
 
             if ((1L << toSquare & enemyPieces) != 0) {
-                moves.add(new Move(kingSquare, toSquare, Move.CAPTURE));
+                moves.add(Move.encode(kingSquare, toSquare, Move.CAPTURE, 0));
             } else {
-                moves.add(new Move(kingSquare, toSquare, Move.QUIET_MOVE));
+                moves.add(Move.encode(kingSquare, toSquare, Move.QUIET_MOVE, 0));
             }
         }
 
         addCastlingMoves(board, isWhite, moves);
 
-        return moves;
     }
 
-    private void addCastlingMoves(Board board, boolean isWhite, List<Move> moves) {
+    private void addCastlingMoves(Board board, boolean isWhite, MoveList moves) {
+        long occupied = board.getOccupied();
+        long attacked = board.attackedBy(!isWhite);
+
         if (isWhite) {
-            // White kingside castling
-            if (board.canWhiteSideCastleKingside()
-                    && (board.getOccupied() & 0x0000000000000006L) == 0     // Check if the F1 and G1 squares are empty
-                    && !isSquareAttacked(board, 4, false)  // Check if the white king is not attacked
-                    && !isSquareAttacked(board, 5, false)  // Check if the F1 square is not attacked
-                    && !isSquareAttacked(board, 6, false)  // Check if the G1 square is not attacked
-            ) {
-                moves.add(new Move(4, 6, Move.KING_CASTLE));
+            // White kingside castling: F1 and G1 empty, E1, F1 and G1 not attacked
+            if (board.canWhiteSideCastleKingside() && (occupied & 0x0000000000000060L) == 0 && (attacked & 0x0000000000000070L) == 0) {
+                moves.add(Move.encode(4, 6, Move.KING_CASTLE, 0));
             }
 
-            // White queenside castling
-            if (board.canWhiteSideCastleQueenside()
-                    && (board.getOccupied() & 0x000000000000000EL) == 0     // Check if the B1, C1 and D1 squares are empty
-                    && !isSquareAttacked(board, 4, false)  // Check if the white king is not attacked
-                    && !isSquareAttacked(board, 3, false)  // Check if the D1 square is not attacked
-                    && !isSquareAttacked(board, 2, false)  // Check if the C1 square is not attacked
-            ) {
-                moves.add(new Move(4, 2, Move.QUEEN_CASTLE));
+            // White queenside castling: B1, C1 and D1 empty, C1, D1 and E1 not attacked
+            if (board.canWhiteSideCastleQueenside() && (occupied & 0x000000000000000EL) == 0 && (attacked & 0x000000000000001CL) == 0) {
+                moves.add(Move.encode(4, 2, Move.QUEEN_CASTLE, 0));
             }
         } else {
-            // Black kingside castling
-            if (board.canBlackSideCastleKingside() &&
-                    (board.getOccupied() & 0x0600000000000000L) == 0 &&     // Check if the F8 and G8 squares are empty
-                    !isSquareAttacked(board, 60, true) &&  // Check if the black king is not attacked
-                    !isSquareAttacked(board, 61, true) &&  // Check if the F8 square is not attacked
-                    !isSquareAttacked(board, 62, true)     // Check if the G8 square is not attacked
-            ) {
-                moves.add(new Move(60, 62, Move.KING_CASTLE));
+            // Black kingside castling: F8 and G8 empty, E8, F8 and G8 not attacked
+            if (board.canBlackSideCastleKingside() && (occupied & 0x6000000000000000L) == 0 && (attacked & 0x7000000000000000L) == 0) {
+                moves.add(Move.encode(60, 62, Move.KING_CASTLE, 0));
             }
 
-            // Black queenside castling
-            if (board.canBlackSideCastleQueenside() &&
-                    (board.getOccupied() & 0x0E00000000000000L) == 0 &&     // Check if the B8, C8, and D8 squares are empty
-                    !isSquareAttacked(board, 60, true) &&  // Check the black king is not attacked
-                    !isSquareAttacked(board, 59, true) &&  // Check if the D8 square is not attacked
-                    !isSquareAttacked(board, 58, true)     // Check if the C8 square is not attacked
-            ) {
-                moves.add(new Move(60, 58, Move.QUEEN_CASTLE));
+            // Black queenside castling: B8, C8 and D8 empty, C8, D8 and E8 not attacked
+            if (board.canBlackSideCastleQueenside() && (occupied & 0x0E00000000000000L) == 0 && (attacked & 0x1C00000000000000L) == 0) {
+                moves.add(Move.encode(60, 58, Move.QUEEN_CASTLE, 0));
             }
         }
     }
 
-    public List<Move> generatePawnMoves(Board board, boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
+    public void generatePawnMoves(Board board, boolean isWhite, MoveList moves) {
 
         long pawns = isWhite ? board.getWhitePawns() : board.getBlackPawns();
 
@@ -424,7 +405,7 @@ public class MoveGenerator {
         // Generate single push
         long singlePush = isWhite
                 ? ((pawns << 8) & emptySquares & ~promotionRank)
-                : ((pawns >> 8) & emptySquares & ~promotionRank);
+                : ((pawns >>> 8) & emptySquares & ~promotionRank);
 
         while (singlePush != 0) {
             // Get the landing square
@@ -434,7 +415,7 @@ public class MoveGenerator {
             // Get the starting square which is just 8 squares before and after the toSquare depending on the color
             // The variable pushDirection is stored exactly for this scenario
             int fromSquare = toSquare - pushDirection;
-            moves.add(new Move(fromSquare, toSquare, Move.QUIET_MOVE));
+            moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
         }
 
         // Here we are checking for the pawns which are on the first rank and can double push
@@ -446,12 +427,12 @@ public class MoveGenerator {
         // Apply single push to candidates, ensuring the intermediate square is empty
         doublePushCandidates = isWhite
                 ? ((doublePushCandidates << 8) & emptySquares)
-                : ((doublePushCandidates >> 8) & emptySquares);
+                : ((doublePushCandidates >>> 8) & emptySquares);
 
         // So, we are going to give all the pawns a double push who qualify for a double push above
         long doublePush = isWhite
                 ? ((doublePushCandidates << 8) & emptySquares)
-                : ((doublePushCandidates >> 8) & emptySquares);
+                : ((doublePushCandidates >>> 8) & emptySquares);
 
         // The same logic as the single push, the only change is the move type
         while (doublePush != 0) {
@@ -459,7 +440,7 @@ public class MoveGenerator {
             doublePush &= doublePush - 1;
 
             int fromSquare = toSquare - (pushDirection * 2);
-            moves.add(new Move(fromSquare, toSquare, Move.DOUBLE_PAWN_PUSH));
+            moves.add(Move.encode(fromSquare, toSquare, Move.DOUBLE_PAWN_PUSH, 0));
         }
 
         // Generating captures to the left of the piece
@@ -468,7 +449,7 @@ public class MoveGenerator {
         if (isWhite) {
             leftCaptures = ((pawns << 9) & BitboardConstants.NOT_FILE_H & enemyPieces & ~promotionRank);
         } else {
-            leftCaptures = ((pawns >> 7) & BitboardConstants.NOT_FILE_H & enemyPieces & ~promotionRank);
+            leftCaptures = ((pawns >>> 7) & BitboardConstants.NOT_FILE_H & enemyPieces & ~promotionRank);
         }
 
         // Same logic for the toSquare and the fromSquare as the single push or the double push
@@ -478,7 +459,7 @@ public class MoveGenerator {
             leftCaptures &= leftCaptures - 1;
 
             int fromSquare = isWhite ? toSquare - 9 : toSquare + 7;
-            moves.add(new Move(fromSquare, toSquare, Move.CAPTURE));
+            moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
         }
 
         // Now, generating captures to the right of the piece
@@ -486,7 +467,7 @@ public class MoveGenerator {
         if (isWhite) {
             rightCaptures = ((pawns << 7) & BitboardConstants.NOT_FILE_A & enemyPieces & ~promotionRank);
         } else {
-            rightCaptures = ((pawns >> 9) & BitboardConstants.NOT_FILE_A & enemyPieces & ~promotionRank);
+            rightCaptures = ((pawns >>> 9) & BitboardConstants.NOT_FILE_A & enemyPieces & ~promotionRank);
         }
 
         // Same logic as the left captures
@@ -495,12 +476,12 @@ public class MoveGenerator {
             rightCaptures &= rightCaptures - 1;
 
             int fromSquare = isWhite ? toSquare - 7 : toSquare + 9;
-            moves.add(new Move(fromSquare, toSquare, Move.CAPTURE));
+            moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
         }
 
         long promotionPush = isWhite
                 ? ((pawns & rankBeforePromotion) << 8 & emptySquares)
-                : ((pawns & rankBeforePromotion) >> 8 & emptySquares);
+                : ((pawns & rankBeforePromotion) >>> 8 & emptySquares);
 
         while (promotionPush != 0) {
             int toSquare = Long.numberOfTrailingZeros(promotionPush);
@@ -508,17 +489,17 @@ public class MoveGenerator {
 
             int fromSquare = isWhite ? toSquare - 8 : toSquare + 8;
 
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION, Move.KNIGHT_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION, Move.BISHOP_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION, Move.ROOK_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION, Move.QUEEN_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION, Move.KNIGHT_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION, Move.BISHOP_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION, Move.ROOK_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION, Move.QUEEN_PROMOTION));
         }
 
         long leftCapturePromotion;
         if (isWhite) {
             leftCapturePromotion = ((pawns & rankBeforePromotion) << 9) & BitboardConstants.NOT_FILE_H & enemyPieces;
         } else {
-            leftCapturePromotion = ((pawns & rankBeforePromotion) >> 7) & BitboardConstants.NOT_FILE_H & enemyPieces;
+            leftCapturePromotion = ((pawns & rankBeforePromotion) >>> 7) & BitboardConstants.NOT_FILE_H & enemyPieces;
         }
 
         while (leftCapturePromotion != 0) {
@@ -527,17 +508,17 @@ public class MoveGenerator {
 
             int fromSquare = isWhite ? toSquare - 9 : toSquare + 7;
 
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.KNIGHT_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.BISHOP_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.ROOK_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.QUEEN_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.KNIGHT_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.BISHOP_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.ROOK_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.QUEEN_PROMOTION));
         }
 
         long rightCapturePromotion;
         if (isWhite) {
             rightCapturePromotion = ((pawns & rankBeforePromotion) << 7) & BitboardConstants.NOT_FILE_A & enemyPieces;
         } else {
-            rightCapturePromotion = ((pawns & rankBeforePromotion) >> 9) & BitboardConstants.NOT_FILE_A & enemyPieces;
+            rightCapturePromotion = ((pawns & rankBeforePromotion) >>> 9) & BitboardConstants.NOT_FILE_A & enemyPieces;
         }
 
         while (rightCapturePromotion != 0) {
@@ -546,10 +527,10 @@ public class MoveGenerator {
 
             int fromSquare = isWhite ? toSquare - 7 : toSquare + 9;
 
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.KNIGHT_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.BISHOP_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.ROOK_PROMOTION));
-            moves.add(new Move(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.QUEEN_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.KNIGHT_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.BISHOP_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.ROOK_PROMOTION));
+            moves.add(Move.encode(fromSquare, toSquare, Move.PROMOTION_CAPTURE, Move.QUEEN_PROMOTION));
         }
 
         int epSquare = board.getEnPassantSquare();
@@ -558,8 +539,8 @@ public class MoveGenerator {
 
             long epCapturers;
             if (isWhite) {
-                epCapturers = ((epTarget >> 9) & BitboardConstants.NOT_FILE_A & pawns) |
-                        ((epTarget >> 7) & BitboardConstants.NOT_FILE_H & pawns);
+                epCapturers = ((epTarget >>> 9) & BitboardConstants.NOT_FILE_A & pawns) |
+                        ((epTarget >>> 7) & BitboardConstants.NOT_FILE_H & pawns);
             } else {
                 epCapturers = ((epTarget << 7) & BitboardConstants.NOT_FILE_A & pawns) |
                         ((epTarget << 9) & BitboardConstants.NOT_FILE_H & pawns);
@@ -569,125 +550,318 @@ public class MoveGenerator {
                 int fromSquare = Long.numberOfTrailingZeros(epCapturers);
                 epCapturers &= epCapturers - 1;
 
-                moves.add(new Move(fromSquare, epSquare, Move.EN_PASSANT_CAPTURE));
+                moves.add(Move.encode(fromSquare, epSquare, Move.EN_PASSANT_CAPTURE, 0));
             }
         }
 
-        return moves;
     }
 
     // Generate all the legal moves
     public List<Move> generateLegalMoves(Board board) {
-        List<Move> pseudoLegalMoves = generateAllMoves(board);
-        List<Move> legalMoves = new ArrayList<>();
+        MoveList moves = new MoveList();
+        generateLegalMoves(board, moves);
+        return moves.toMoves();
+    }
+
+    // Generate all the legal moves into the given list, which is cleared first.
+    // Checkers, pinned pieces and the squares the king may not step on are computed once for the position,
+    // so every move is filtered with a few mask operations instead of being played and taken back.
+    public void generateLegalMoves(Board board, MoveList moves) {
+        generateLegal(board, moves, GEN_ALL, false);
+    }
+
+    // Generate one subset of the legal moves (GEN_ALL, GEN_CAPTURES or GEN_QUIETS) into the given list
+    public void generateLegalMoves(Board board, MoveList moves, int genType) {
+        generateLegal(board, moves, genType, false);
+    }
+
+    // Whether the side to move has any legal move, stops at the first piece group that produces one
+    public boolean hasLegalMove(Board board) {
+        MoveList moves = new MoveList();
+        generateLegal(board, moves, GEN_ALL, true);
+        return !moves.isEmpty();
+    }
+
+    private void generateLegal(Board board, MoveList moves, int genType, boolean stopAtFirst) {
+        moves.clear();
 
         boolean isWhite = board.isWhiteToMove();
+        long friendlyPieces = isWhite ? board.getWhitePieces() : board.getBlackPieces();
+        long enemyPieces = isWhite ? board.getBlackPieces() : board.getWhitePieces();
+        long occupied = board.getOccupied();
+        long kingBB = isWhite ? board.getWhiteKing() : board.getBlackKing();
+        int kingSquare = Long.numberOfTrailingZeros(kingBB);
+
+        long checkers = getAttackersTo(board, kingSquare, occupied, !isWhite);
 
-        for (Move move : pseudoLegalMoves) {
+        // The attack map sees through our king, so it cannot hide behind itself on a slider's ray
+        long kingDanger = board.attackedBy(!isWhite);
+
+        // Restricts the destination squares to the requested subset
+        long genTargets = genType == GEN_CAPTURES ? enemyPieces : genType == GEN_QUIETS ? ~occupied : -1L;
+
+        addMoves(kingSquare, getKingAttacks(kingSquare) & ~friendlyPieces & ~kingDanger & genTargets, enemyPieces, moves);
+
+        // In double check only the king can move
+        if ((checkers & (checkers - 1)) != 0 || (stopAtFirst && !moves.isEmpty())) {
+            return;
+        }
+
+        // Squares that resolve a single check: capturing the checker or blocking its ray
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+        } else if (genType != GEN_CAPTURES) {
+            addLegalCastlingMoves(board, isWhite, kingDanger, moves);
+        }
+
+        long pinned = getPinnedPieces(board, isWhite);
+        long targets = ~friendlyPieces & checkMask & genTargets;
+
+        // A pinned knight can never stay on the pin line
+        long knights = (isWhite ? board.getWhiteKnights() : board.getBlackKnights()) & ~pinned;
+        while (knights != 0) {
+            int fromSquare = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            addMoves(fromSquare, getKnightAttacks(fromSquare) & targets, enemyPieces, moves);
+        }
+        if (stopAtFirst && !moves.isEmpty()) {
+            return;
+        }
+
+        long bishops = isWhite ? board.getWhiteBishops() : board.getBlackBishops();
+        while (bishops != 0) {
+            int fromSquare = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            long attacks = getDiagonalAttacks(fromSquare, occupied) & targets & pinRay(pinned, kingSquare, fromSquare);
+            addMoves(fromSquare, attacks, enemyPieces, moves);
+        }
+        if (stopAtFirst && !moves.isEmpty()) {
+            return;
+        }
+
+        long rooks = isWhite ? board.getWhiteRooks() : board.getBlackRooks();
+        while (rooks != 0) {
+            int fromSquare = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            long attacks = getStraightAttacks(fromSquare, occupied) & targets & pinRay(pinned, kingSquare, fromSquare);
+            addMoves(fromSquare, attacks, enemyPieces, moves);
+        }
+        if (stopAtFirst && !moves.isEmpty()) {
+            return;
+        }
+
+        long queens = isWhite ? board.getWhiteQueens() : board.getBlackQueens();
+        while (queens != 0) {
+            int fromSquare = Long.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            long attacks = getQueenAttacks(fromSquare, occupied) & targets & pinRay(pinned, kingSquare, fromSquare);
+            addMoves(fromSquare, attacks, enemyPieces, moves);
+        }
+
+        addLegalPawnMoves(board, isWhite, kingSquare, checkMask, pinned, genType, moves);
+    }
+
+    // Reference generator: plays every pseudo-legal move and keeps those that do not leave the king in check.
+    // Much slower than generateLegalMoves, kept to cross-check it (see Perft.verify).
+    public void generateLegalMovesReference(Board board, MoveList moves) {
+        moves.clear();
+        generateAllMoves(board, moves);
+
+        boolean isWhite = board.isWhiteToMove();
+
+        // Compact the legal moves to the front of the list
+        int legalCount = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
             board.makeMove(move);
 
             if (!isKingInCheck(board, isWhite)) {
-                legalMoves.add(move);
+                moves.set(legalCount++, move);
             }
 
             board.unmakeMove();
         }
+        moves.truncate(legalCount);
+    }
 
-        return legalMoves;
+    // A pinned piece may only move along the line through its king and itself
+    private static long pinRay(long pinned, int kingSquare, int fromSquare) {
+        return (pinned & (1L << fromSquare)) != 0 ? LINE[kingSquare][fromSquare] : -1L;
     }
 
-    // Generate all the pseudo-legal moves
-    public List<Move> generateAllMoves(Board board) {
-        List<Move> moves = new ArrayList<>();
-        boolean isWhite = board.isWhiteToMove();
+    private static void addMoves(int fromSquare, long targets, long enemyPieces, MoveList moves) {
+        while (targets != 0) {
+            int toSquare = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
 
-        moves.addAll(generatePawnMoves(board, isWhite));
-        moves.addAll(generateKnightMoves(board, isWhite));
-        moves.addAll(generateBishopMoves(board, isWhite));
-        moves.addAll(generateRookMoves(board, isWhite));
-        moves.addAll(generateQueenMoves(board, isWhite));
-        moves.addAll(generateKingMoves(board, isWhite));
+            if (((1L << toSquare) & enemyPieces) != 0) {
+                moves.add(Move.encode(fromSquare, toSquare, Move.CAPTURE, 0));
+            } else {
+                moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
+            }
+        }
+    }
 
-        return moves;
+    private static void addPromotions(int fromSquare, int toSquare, int moveType, MoveList moves) {
+        moves.add(Move.encode(fromSquare, toSquare, moveType, Move.KNIGHT_PROMOTION));
+        moves.add(Move.encode(fromSquare, toSquare, moveType, Move.BISHOP_PROMOTION));
+        moves.add(Move.encode(fromSquare, toSquare, moveType, Move.ROOK_PROMOTION));
+        moves.add(Move.encode(fromSquare, toSquare, moveType, Move.QUEEN_PROMOTION));
     }
 
-    public boolean isSquareAttacked(Board board, int square, boolean byWhite) {
-        // Get the target square as a bitboard
-        long targetSquare = 1L << square;
+    private static void addLegalPawnMoves(Board board, boolean isWhite, int kingSquare, long checkMask, long pinned, int genType, MoveList moves) {
+        long pawns = isWhite ? board.getWhitePawns() : board.getBlackPawns();
+        long occupied = board.getOccupied();
+        long enemyPieces = isWhite ? board.getBlackPieces() : board.getWhitePieces();
+        int pushDirection = isWhite ? 8 : -8;
+        long startRank = isWhite ? BitboardConstants.RANK_2 : BitboardConstants.RANK_7;
+        long promotionRank = isWhite ? BitboardConstants.RANK_8 : BitboardConstants.RANK_1;
+        int epSquare = board.getEnPassantSquare();
 
-        if (byWhite) {
-            // Check if white pawns attack the square
-            long whitePawns = board.getWhitePawns();
-            if ((((targetSquare >> 9) & BitboardConstants.NOT_FILE_H) & whitePawns) != 0 ||
-                    (((targetSquare >> 7) & BitboardConstants.NOT_FILE_A) & whitePawns) != 0) {
-                return true;
+        while (pawns != 0) {
+            int fromSquare = Long.numberOfTrailingZeros(pawns);
+            long fromBB = pawns & -pawns;
+            pawns &= pawns - 1;
+
+            long allowed = checkMask & pinRay(pinned, kingSquare, fromSquare);
+
+            // Pushes
+            int toSquare = fromSquare + pushDirection;
+            long toBB = 1L << toSquare;
+            if ((occupied & toBB) == 0) {
+                if ((allowed & toBB) != 0) {
+                    if ((toBB & promotionRank) != 0) {
+                        if (genType != GEN_QUIETS) {
+                            addPromotions(fromSquare, toSquare, Move.PROMOTION, moves);
+                        }
+                    } else if (genType != GEN_CAPTURES) {
+                        moves.add(Move.encode(fromSquare, toSquare, Move.QUIET_MOVE, 0));
+                    }
+                }
+
+                int doubleSquare = toSquare + pushDirection;
+                if (genType != GEN_CAPTURES && (fromBB & startRank) != 0 && (occupied & (1L << doubleSquare)) == 0 && (allowed & (1L << doubleSquare)) != 0) {
+                    moves.add(Move.encode(fromSquare, doubleSquare, Move.DOUBLE_PAWN_PUSH, 0));
+                }
             }
 
-            // Check if white knights attack the square
-            long whiteKnights = board.getWhiteKnights();
-            if ((getKnightAttacks(square) & whiteKnights) != 0) {
-                return true;
+            if (genType == GEN_QUIETS) {
+                continue;
             }
 
-            // Check if white king attacks the square
-            long whiteKing = board.getWhiteKing();
-            if ((getKingAttacks(square) & whiteKing) != 0) {
-                return true;
+            // Captures
+            long captures = getPawnAttacks(fromSquare, isWhite) & enemyPieces & allowed;
+            while (captures != 0) {
+                int captureSquare = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+
+                if (((1L << captureSquare) & promotionRank) != 0) {
+                    addPromotions(fromSquare, captureSquare, Move.PROMOTION_CAPTURE, moves);
+                } else {
+                    moves.add(Move.encode(fromSquare, captureSquare, Move.CAPTURE, 0));
+                }
             }
 
-            // Check if white bishops or queens attack on diagonals
-            long whiteBishopsAndQueens = board.getWhiteBishops() | board.getWhiteQueens();
-            if ((getDiagonalAttacks(square, board.getOccupied()) & whiteBishopsAndQueens) != 0) {
-                return true;
+            // En passant removes two pieces from one rank, so it is checked against the actual resulting occupancy
+            if (epSquare != -1 && (getPawnAttacks(fromSquare, isWhite) & (1L << epSquare)) != 0) {
+                long epBB = 1L << epSquare;
+                long capturedBB = 1L << (epSquare - pushDirection);
+
+                // When in check, the capture has to remove the checking pawn or block the check
+                if ((checkMask & (epBB | capturedBB)) == 0) {
+                    continue;
+                }
+
+                long occupiedAfter = (occupied ^ fromBB ^ capturedBB) | epBB;
+                long enemyQueens = isWhite ? board.getBlackQueens() : board.getWhiteQueens();
+                long enemyDiagonal = (isWhite ? board.getBlackBishops() : board.getWhiteBishops()) | enemyQueens;
+                long enemyStraight = (isWhite ? board.getBlackRooks() : board.getWhiteRooks()) | enemyQueens;
+                if ((getDiagonalAttacks(kingSquare, occupiedAfter) & enemyDiagonal) == 0
+                        && (getStraightAttacks(kingSquare, occupiedAfter) & enemyStraight) == 0) {
+                    moves.add(Move.encode(fromSquare, epSquare, Move.EN_PASSANT_CAPTURE, 0));
+                }
             }
+        }
+    }
 
-            // Check if white rooks or queens attack on files/ranks
-            long whiteRooksAndQueens = board.getWhiteRooks() | board.getWhiteQueens();
-            if ((getStraightAttacks(square, board.getOccupied()) & whiteRooksAndQueens) != 0) {
-                return true;
+    // Castling with the king danger squares already known, the king is not in check when this is called
+    private static void addLegalCastlingMoves(Board board, boolean isWhite, long kingDanger, MoveList moves) {
+        long occupied = board.getOccupied();
+
+        if (isWhite) {
+            // F1 and G1 must be empty and not attacked
+            if (board.canWhiteSideCastleKingside() && (occupied & 0x0000000000000060L) == 0 && (kingDanger & 0x0000000000000060L) == 0) {
+                moves.add(Move.encode(4, 6, Move.KING_CASTLE, 0));
+            }
+            // B1, C1 and D1 must be empty, C1 and D1 not attacked
+            if (board.canWhiteSideCastleQueenside() && (occupied & 0x000000000000000EL) == 0 && (kingDanger & 0x000000000000000CL) == 0) {
+                moves.add(Move.encode(4, 2, Move.QUEEN_CASTLE, 0));
             }
         } else {
-            // Check if black pawns attack the square
-            long blackPawns = board.getBlackPawns();
-            if ((((targetSquare << 9) & BitboardConstants.NOT_FILE_A) & blackPawns) != 0 ||
-                    (((targetSquare << 7) & BitboardConstants.NOT_FILE_H) & blackPawns) != 0) {
-                return true;
+            // F8 and G8 must be empty and not attacked
+            if (board.canBlackSideCastleKingside() && (occupied & 0x6000000000000000L) == 0 && (kingDanger & 0x6000000000000000L) == 0) {
+                moves.add(Move.encode(60, 62, Move.KING_CASTLE, 0));
             }
-
-            // Check if black knights attack the square
-            long blackKnights = board.getBlackKnights();
-            if ((getKnightAttacks(square) & blackKnights) != 0) {
-                return true;
+            // B8, C8 and D8 must be empty, C8 and D8 not attacked
+            if (board.canBlackSideCastleQueenside() && (occupied & 0x0E00000000000000L) == 0 && (kingDanger & 0x0C00000000000000L) == 0) {
+                moves.add(Move.encode(60, 58, Move.QUEEN_CASTLE, 0));
             }
+        }
+    }
 
-            // Check if black king attacks the square
-            long blackKing = board.getBlackKing();
-            if ((getKingAttacks(square) & blackKing) != 0) {
-                return true;
-            }
+    // Generate all the pseudo-legal moves
+    public List<Move> generateAllMoves(Board board) {
+        MoveList moves = new MoveList();
+        generateAllMoves(board, moves);
+        return moves.toMoves();
+    }
 
-            // Check if black bishops or queens attack on diagonals
-            long blackBishopsAndQueens = board.getBlackBishops() | board.getBlackQueens();
-            if ((getDiagonalAttacks(square, board.getOccupied()) & blackBishopsAndQueens) != 0) {
-                return true;
-            }
+    // Append all the pseudo-legal moves to the given list
+    public void generateAllMoves(Board board, MoveList moves) {
+        boolean isWhite = board.isWhiteToMove();
 
-            // Check if black rooks or queens attack on files/ranks
-            long blackRooksAndQueens = board.getBlackRooks() | board.getBlackQueens();
-            if ((getStraightAttacks(square, board.getOccupied()) & blackRooksAndQueens) != 0) {
-                return true;
-            }
+        generatePawnMoves(board, isWhite, moves);
+        generateKnightMoves(board, isWhite, moves);
+        generateBishopMoves(board, isWhite, moves);
+        generateRookMoves(board, isWhite, moves);
+        generateQueenMoves(board, isWhite, moves);
+        generateKingMoves(board, isWhite, moves);
+    }
+
+    public static boolean isSquareAttacked(Board board, int square, boolean byWhite) {
+        // A pawn of the defending color on this square would capture exactly where the attacking pawns stand
+        long pawns = byWhite ? board.getWhitePawns() : board.getBlackPawns();
+        if ((getPawnAttacks(square, !byWhite) & pawns) != 0) {
+            return true;
         }
 
-        // No attacks found
-        return false;
-    }
+        long knights = byWhite ? board.getWhiteKnights() : board.getBlackKnights();
+        if ((getKnightAttacks(square) & knights) != 0) {
+            return true;
+        }
 
-    public boolean isKingInCheck(Board board, boolean whiteKing) {
-        int kingSquare = whiteKing ?
-                Long.numberOfTrailingZeros(board.getWhiteKing()) :
-                Long.numberOfTrailingZeros(board.getBlackKing());
+        long king = byWhite ? board.getWhiteKing() : board.getBlackKing();
+        if ((getKingAttacks(square) & king) != 0) {
+            return true;
+        }
+
+        long occupied = board.getOccupied();
+        long queens = byWhite ? board.getWhiteQueens() : board.getBlackQueens();
+
+        // Check if bishops or queens attack on diagonals
+        long bishopsAndQueens = (byWhite ? board.getWhiteBishops() : board.getBlackBishops()) | queens;
+        if ((getDiagonalAttacks(square, occupied) & bishopsAndQueens) != 0) {
+            return true;
+        }
+
+        // Check if rooks or queens attack on files/ranks
+        long rooksAndQueens = (byWhite ? board.getWhiteRooks() : board.getBlackRooks()) | queens;
+        return (getStraightAttacks(square, occupied) & rooksAndQueens) != 0;
+    }
 
-        return isSquareAttacked(board, kingSquare, !whiteKing);
+    public static boolean isKingInCheck(Board board, boolean whiteKing) {
+        long king = whiteKing ? board.getWhiteKing() : board.getBlackKing();
+        return (board.attackedBy(!whiteKing) & king) != 0;
     }
 }
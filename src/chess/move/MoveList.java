@@ -0,0 +1,65 @@
+package chess.move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reusable list of packed int moves (see {@link Move#encode(int, int, int, int)}).
+ * The backing array is allocated once, so generating into a cleared list does not allocate.
+ */
+public class MoveList {
+    // No legal chess position has more than 218 moves
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves = new int[MAX_MOVES];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Drops every move from the given index onwards
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    public List<Move> toMoves() {
+        List<Move> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(Move.decode(moves[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toMoves().toString();
+    }
+}
@@ -0,0 +1,150 @@
+package chess.move;
+
+import chess.board.Board;
+
+/**
+ * Hands out the legal moves of a position one at a time in search order: the hash move first, then captures and
+ * promotions ordered by MVV-LVA (most valuable victim, least valuable attacker), then the quiet moves.
+ * <p>
+ * Each stage is generated only when the previous one runs out, so a caller that stops early, after a cutoff or on
+ * the first legal move, never pays for the later stages. A picker can be reset and reused to avoid allocating one
+ * per node.
+ */
+public final class MovePicker {
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_GENERATE_QUIETS = 3;
+    private static final int STAGE_QUIETS = 4;
+    private static final int STAGE_DONE = 5;
+
+    // Ordering values per piece type, pawn to king (same order as the Board piece codes)
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 10000};
+
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+    private final MoveList moves = new MoveList();
+    private final int[] scores = new int[MoveList.MAX_MOVES];
+
+    private Board board;
+    private int hashMove;
+    private boolean capturesOnly;
+    private int stage;
+    private int index;
+
+    public MovePicker(Board board, int hashMove) {
+        this(board, hashMove, false);
+    }
+
+    // With capturesOnly set the picker stops after the captures and promotions, as quiescence search needs
+    public MovePicker(Board board, int hashMove, boolean capturesOnly) {
+        reset(board, hashMove, capturesOnly);
+    }
+
+    public void reset(Board board, int hashMove, boolean capturesOnly) {
+        this.board = board;
+        this.hashMove = hashMove;
+        this.capturesOnly = capturesOnly;
+        this.stage = STAGE_HASH_MOVE;
+        this.index = 0;
+        moves.clear();
+    }
+
+    // Returns the next legal move, or Move.NO_MOVE once all stages are exhausted
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH_MOVE:
+                    stage = STAGE_GENERATE_CAPTURES;
+                    if (isUsableHashMove()) {
+                        return hashMove;
+                    }
+                    // The hash move may come from another position after a key collision, ignore it then
+                    hashMove = Move.NO_MOVE;
+                    break;
+
+                case STAGE_GENERATE_CAPTURES:
+                    moveGenerator.generateLegalMoves(board, moves, MoveGenerator.GEN_CAPTURES);
+                    for (int i = 0; i < moves.size(); i++) {
+                        scores[i] = scoreCapture(moves.get(i));
+                    }
+                    index = 0;
+                    stage = STAGE_CAPTURES;
+                    break;
+
+                case STAGE_CAPTURES:
+                    while (index < moves.size()) {
+                        int move = pickBest();
+                        if (move != hashMove) {
+                            return move;
+                        }
+                    }
+                    stage = capturesOnly ? STAGE_DONE : STAGE_GENERATE_QUIETS;
+                    break;
+
+                case STAGE_GENERATE_QUIETS:
+                    moveGenerator.generateLegalMoves(board, moves, MoveGenerator.GEN_QUIETS);
+                    index = 0;
+                    stage = STAGE_QUIETS;
+                    break;
+
+                case STAGE_QUIETS:
+                    while (index < moves.size()) {
+                        int move = moves.get(index++);
+                        if (move != hashMove) {
+                            return move;
+                        }
+                    }
+                    stage = STAGE_DONE;
+                    break;
+
+                default:
+                    return Move.NO_MOVE;
+            }
+        }
+    }
+
+    private boolean isUsableHashMove() {
+        if (hashMove == Move.NO_MOVE) {
+            return false;
+        }
+        if (capturesOnly && !Move.isCapture(hashMove) && !Move.isPromotion(hashMove)) {
+            return false;
+        }
+        // isLegal resolves the type and promotion itself, so an exact match means the stored move is legal here
+        return board.isLegal(Move.from(hashMove), Move.to(hashMove), Move.promotionPiece(hashMove)).getMove() == hashMove;
+    }
+
+    private int scoreCapture(int move) {
+        int attacker = board.getPieceAt(Move.from(move)) % 6;
+        int score = -attacker;
+        if (Move.moveType(move) == Move.EN_PASSANT_CAPTURE) {
+            score += PIECE_VALUES[Board.WHITE_PAWN] * 16;
+        } else if (Move.isCapture(move)) {
+            score += PIECE_VALUES[board.getPieceAt(Move.to(move)) % 6] * 16;
+        }
+        if (Move.isPromotion(move)) {
+            // Promotion piece codes start at the knight
+            score += PIECE_VALUES[Move.promotionPiece(move) + Board.WHITE_KNIGHT] * 16;
+        }
+        return score;
+    }
+
+    // Selection sort step: swap the best remaining capture into place and return it
+    private int pickBest() {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = moves.get(best);
+        int score = scores[best];
+        moves.set(best, moves.get(index));
+        scores[best] = scores[index];
+        moves.set(index, move);
+        scores[index] = score;
+        index++;
+        return move;
+    }
+}
@@ -0,0 +1,55 @@
+package chess.move;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games in Portable Game Notation.
+ */
+public final class Pgn {
+    // Export format keeps movetext lines below 80 characters
+    private static final int MAX_LINE_LENGTH = 79;
+
+    private Pgn() {
+    }
+
+    /**
+     * Formats a game that starts from the initial position: the tag pairs in the given order, an empty line and the
+     * numbered SAN movetext, wrapped and terminated by the result ("1-0", "0-1", "1/2-1/2" or "*").
+     */
+    public static String format(Map<String, String> tags, List<String> sanMoves, String result) {
+        StringBuilder sb = new StringBuilder(128 + sanMoves.size() * 8);
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            sb.append('[').append(tag.getKey()).append(" \"").append(escape(tag.getValue())).append("\"]\n");
+        }
+        sb.append('\n');
+
+        int lineStart = sb.length();
+        for (int i = 0; i <= sanMoves.size(); i++) {
+            String token;
+            if (i == sanMoves.size()) {
+                token = result;
+            } else if (i % 2 == 0) {
+                token = (i / 2 + 1) + ". " + sanMoves.get(i);
+            } else {
+                token = sanMoves.get(i);
+            }
+
+            if (sb.length() > lineStart) {
+                if (sb.length() - lineStart + 1 + token.length() > MAX_LINE_LENGTH) {
+                    sb.append('\n');
+                    lineStart = sb.length();
+                } else {
+                    sb.append(' ');
+                }
+            }
+            sb.append(token);
+        }
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
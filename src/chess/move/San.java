@@ -0,0 +1,259 @@
+package chess.move;
+
+import chess.board.Board;
+import chess.board.MoveValidation;
+
+/**
+ * Standard Algebraic Notation (e.g. "Nbd7", "exd5", "e8=Q+", "O-O").
+ * <p>
+ * Disambiguation works from attack bitboards: the pieces that could also reach the target square are the
+ * reverse attacks from that square, minus pinned pieces that would leave their pin line. Parsing does the same
+ * to find the candidate pieces and checks each with {@link Board#isLegal(int, int, int)}, so neither direction
+ * generates the full move list.
+ */
+public final class San {
+    // Indexed by piece type, the Board piece constant of the white piece
+    private static final String PIECE_LETTERS = "PNBRQK";
+    // Indexed by promotion piece code
+    private static final String PROMOTION_LETTERS = "NBRQ";
+
+    private static final int PAWN = Board.WHITE_PAWN;
+    private static final int KING = Board.WHITE_KING;
+
+    private static final MoveGenerator GENERATOR = new MoveGenerator();
+
+    private San() {
+    }
+
+    /**
+     * Writes a legal move of the side to move in SAN, including the check or mate suffix.
+     * The move is played and taken back on the board to find the suffix.
+     */
+    public static String toSan(Board board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moveType = Move.moveType(move);
+
+        StringBuilder sb = new StringBuilder(8);
+        if (moveType == Move.KING_CASTLE) {
+            sb.append("O-O");
+        } else if (moveType == Move.QUEEN_CASTLE) {
+            sb.append("O-O-O");
+        } else {
+            int pieceType = board.getPieceAt(from) % 6;
+            if (pieceType == PAWN) {
+                if (Move.isCapture(move)) {
+                    sb.append((char) ('a' + (from & 7))).append('x');
+                }
+                appendSquare(sb, to);
+                if (Move.isPromotion(move)) {
+                    sb.append('=').append(PROMOTION_LETTERS.charAt(Move.promotionPiece(move)));
+                }
+            } else {
+                sb.append(PIECE_LETTERS.charAt(pieceType));
+                appendDisambiguation(sb, board, pieceType, from, to);
+                if (Move.isCapture(move)) {
+                    sb.append('x');
+                }
+                appendSquare(sb, to);
+            }
+        }
+
+        board.makeMove(move);
+        if (board.isInCheck()) {
+            sb.append(GENERATOR.hasLegalMove(board) ? '+' : '#');
+        }
+        board.unmakeMove();
+
+        return sb.toString();
+    }
+
+    /**
+     * Reads a SAN move for the side to move. Check, mate and annotation suffixes are ignored, "0-0" is accepted
+     * for castling and the "=" before a promotion piece is optional. The capture sign is not: a capture written
+     * without "x" (or ":"), or a quiet move written with one, is rejected.
+     *
+     * @return The legal move in packed int form
+     * @throws IllegalArgumentException if the text is not SAN, or the move is illegal or ambiguous
+     */
+    public static int parse(Board board, String san) {
+        String text = san.trim();
+        int end = text.length();
+        while (end > 0 && "+#!?".indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end == 0) {
+            throw new IllegalArgumentException("Empty move");
+        }
+
+        boolean white = board.isWhiteToMove();
+        int kingSquare = white ? 4 : 60;
+        String body = text.substring(0, end);
+        if (body.equals("O-O") || body.equals("0-0")) {
+            return resolveCastling(board, san, kingSquare, kingSquare + 2, Move.KING_CASTLE);
+        }
+        if (body.equals("O-O-O") || body.equals("0-0-0")) {
+            return resolveCastling(board, san, kingSquare, kingSquare - 2, Move.QUEEN_CASTLE);
+        }
+
+        int index = 0;
+        int pieceType = PAWN;
+        if (PIECE_LETTERS.indexOf(text.charAt(0)) > 0) {
+            pieceType = PIECE_LETTERS.indexOf(text.charAt(0));
+            index = 1;
+        }
+
+        // Promotion piece, always upper case so it cannot be confused with the b-file
+        int promotion = -1;
+        if (pieceType == PAWN && end - index > 2 && PROMOTION_LETTERS.indexOf(text.charAt(end - 1)) >= 0) {
+            promotion = PROMOTION_LETTERS.indexOf(text.charAt(end - 1));
+            end--;
+            if (text.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+
+        // Target square
+        if (end - index < 2) {
+            throw new IllegalArgumentException("Invalid move: " + san);
+        }
+        int toFile = text.charAt(end - 2) - 'a';
+        int toRank = text.charAt(end - 1) - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            throw new IllegalArgumentException("Invalid move: " + san);
+        }
+        int to = toRank * 8 + toFile;
+        end -= 2;
+
+        boolean capture = false;
+        if (end > index && (text.charAt(end - 1) == 'x' || text.charAt(end - 1) == ':')) {
+            capture = true;
+            end--;
+        }
+
+        // Disambiguation: a file, a rank or both, in that order
+        int fromFile = -1;
+        int fromRank = -1;
+        for (; index < end; index++) {
+            char c = text.charAt(index);
+            if (c >= 'a' && c <= 'h' && fromFile == -1 && fromRank == -1) {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8' && fromRank == -1) {
+                fromRank = c - '1';
+            } else {
+                throw new IllegalArgumentException("Invalid move: " + san);
+            }
+        }
+
+        long friendly = board.getPieces(pieceType + (white ? Board.WHITE_PAWN : Board.BLACK_PAWN));
+        long candidates;
+        if (pieceType == PAWN) {
+            if (capture || (fromFile != -1 && fromFile != toFile)) {
+                candidates = MoveGenerator.getPawnAttacks(to, !white) & friendly;
+            } else {
+                long toBB = 1L << to;
+                long single = white ? toBB >>> 8 : toBB << 8;
+                long twoSteps = white ? toBB >>> 16 : toBB << 16;
+                candidates = friendly & (single | ((board.getOccupied() & single) == 0 ? twoSteps : 0L));
+            }
+        } else {
+            candidates = attacksFrom(pieceType, to, board.getOccupied()) & friendly;
+        }
+        if (fromFile != -1) {
+            candidates &= 0x0101010101010101L << fromFile;
+        }
+        if (fromRank != -1) {
+            candidates &= 0xFFL << (fromRank * 8);
+        }
+
+        int found = Move.NO_MOVE;
+        while (candidates != 0) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            MoveValidation validation = board.isLegal(from, to, promotion == -1 ? Move.QUEEN_PROMOTION : promotion);
+            if (validation.isLegal()) {
+                if (found != Move.NO_MOVE) {
+                    throw new IllegalArgumentException("Ambiguous move: " + san);
+                }
+                found = validation.getMove();
+            }
+        }
+
+        if (found == Move.NO_MOVE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        if (Move.isPromotion(found) != (promotion != -1)) {
+            throw new IllegalArgumentException(promotion == -1 ? "Missing promotion piece: " + san : "Invalid move: " + san);
+        }
+        if (Move.isCapture(found) != capture) {
+            throw new IllegalArgumentException(capture ? "Not a capture: " + san : "Missing capture sign: " + san);
+        }
+        return found;
+    }
+
+    // Only a king move two squares sideways is castling, any other piece standing on the king's square is rejected
+    private static int resolveCastling(Board board, String san, int from, int to, int castleType) {
+        MoveValidation validation = board.isLegal(from, to, Move.QUEEN_PROMOTION);
+        if (!validation.isLegal() || Move.moveType(validation.getMove()) != castleType) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return validation.getMove();
+    }
+
+    // Adds the file, rank or both when another piece of the same kind can legally move to the same square
+    private static void appendDisambiguation(StringBuilder sb, Board board, int pieceType, int from, int to) {
+        if (pieceType == KING) {
+            return;
+        }
+
+        boolean white = board.isWhiteToMove();
+        long friendly = board.getPieces(pieceType + (white ? Board.WHITE_PAWN : Board.BLACK_PAWN));
+        long others = attacksFrom(pieceType, to, board.getOccupied()) & friendly & ~(1L << from);
+        if (others == 0) {
+            return;
+        }
+
+        // A pinned piece only counts if the target square is on its pin line
+        long pinnedOthers = others & MoveGenerator.getPinnedPieces(board, white);
+        int kingSquare = Long.numberOfTrailingZeros(board.getPieces(white ? Board.WHITE_KING : Board.BLACK_KING));
+        while (pinnedOthers != 0) {
+            int square = Long.numberOfTrailingZeros(pinnedOthers);
+            pinnedOthers &= pinnedOthers - 1;
+            if ((MoveGenerator.getLine(kingSquare, square) & (1L << to)) == 0) {
+                others &= ~(1L << square);
+            }
+        }
+        if (others == 0) {
+            return;
+        }
+
+        if ((others & (0x0101010101010101L << (from & 7))) == 0) {
+            sb.append((char) ('a' + (from & 7)));
+        } else if ((others & (0xFFL << (from & 0x38))) == 0) {
+            sb.append((char) ('1' + (from >>> 3)));
+        } else {
+            appendSquare(sb, from);
+        }
+    }
+
+    // Squares a piece of the given type on the square attacks, which are also the squares it can be reached from
+    private static long attacksFrom(int pieceType, int square, long occupied) {
+        switch (pieceType) {
+            case Board.WHITE_KNIGHT:
+                return MoveGenerator.getKnightAttacks(square);
+            case Board.WHITE_BISHOP:
+                return MoveGenerator.getDiagonalAttacks(square, occupied);
+            case Board.WHITE_ROOK:
+                return MoveGenerator.getStraightAttacks(square, occupied);
+            case Board.WHITE_QUEEN:
+                return MoveGenerator.getQueenAttacks(square, occupied);
+            default:
+                return MoveGenerator.getKingAttacks(square);
+        }
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
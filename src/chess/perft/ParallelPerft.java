@@ -0,0 +1,96 @@
+package chess.perft;
+
+import chess.board.Board;
+import chess.move.Move;
+import chess.move.MoveGenerator;
+import chess.move.MoveList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft that splits the move tree across a ForkJoinPool. The top splitDepth plies are expanded into one
+ * task per move, and each task counts its subtree with a single-threaded {@link Perft} on its own copy of
+ * the board, so the totals are identical to the single-threaded counts.
+ */
+public class ParallelPerft {
+    private final ForkJoinPool pool;
+
+    public ParallelPerft(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public long perft(Board board, int depth, int splitDepth) {
+        return pool.invoke(new SubtreeTask(board.copy(), depth, splitDepth));
+    }
+
+    // Node count below every root move, keyed by the move in coordinate notation
+    public Map<String, Long> divide(Board board, int depth, int splitDepth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (depth < 1) {
+            return result;
+        }
+
+        MoveList moves = new MoveList();
+        new MoveGenerator().generateLegalMoves(board, moves);
+
+        List<SubtreeTask> tasks = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            Board child = board.copy();
+            child.makeMove(moves.get(i));
+            tasks.add(new SubtreeTask(child, depth - 1, splitDepth - 1));
+        }
+        for (SubtreeTask task : tasks) {
+            pool.execute(task);
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            result.put(Move.toUci(moves.get(i)), tasks.get(i).join());
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static final class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+        private final int splitDepth;
+
+        SubtreeTask(Board board, int depth, int splitDepth) {
+            this.board = board;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitDepth <= 0 || depth <= 1) {
+                return new Perft(board).perft(depth);
+            }
+
+            MoveList moves = new MoveList();
+            new MoveGenerator().generateLegalMoves(board, moves);
+
+            List<SubtreeTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                Board child = board.copy();
+                child.makeMove(moves.get(i));
+                children.add(new SubtreeTask(child, depth - 1, splitDepth - 1));
+            }
+
+            long nodes = 0;
+            for (SubtreeTask child : invokeAll(children)) {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+}
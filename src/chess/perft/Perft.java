@@ -0,0 +1,127 @@
+package chess.perft;
+
+import chess.board.Board;
+import chess.move.Move;
+import chess.move.MoveGenerator;
+import chess.move.MoveList;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The totals for well-known positions are
+ * published, which makes perft the standard correctness check for a move generator as well as a benchmark.
+ */
+public class Perft {
+    private final Board board;
+    private final MoveGenerator generator = new MoveGenerator();
+
+    // One move list per remaining depth, so the recursion does not allocate
+    private MoveList[] moveLists = new MoveList[0];
+
+    public Perft(Board board) {
+        this.board = board;
+    }
+
+    public long perft(int depth) {
+        ensureMoveLists(depth);
+        return count(depth);
+    }
+
+    // Node count below every root move, keyed by the move in coordinate notation
+    public Map<String, Long> divide(int depth) {
+        ensureMoveLists(depth);
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (depth < 1) {
+            return result;
+        }
+
+        MoveList moves = moveLists[depth];
+        generator.generateLegalMoves(board, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            result.put(Move.toUci(move), count(depth - 1));
+            board.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Walks the tree to the given depth and compares the legal moves of every position with those of
+     * {@link MoveGenerator#generateLegalMovesReference}, which plays each pseudo-legal move to filter it.
+     * Positions where the two disagree are printed with both move lists.
+     *
+     * @return The number of positions where the generators disagree, 0 when they match everywhere
+     */
+    public int verify(int depth) {
+        ensureMoveLists(depth);
+        return compare(depth, new MoveList());
+    }
+
+    private int compare(int depth, MoveList reference) {
+        if (depth == 0) {
+            return 0;
+        }
+
+        MoveList moves = moveLists[depth];
+        generator.generateLegalMoves(board, moves);
+        generator.generateLegalMovesReference(board, reference);
+        int mismatches = 0;
+        if (!Arrays.equals(sortedMoves(moves), sortedMoves(reference))) {
+            mismatches++;
+            System.out.println("Mismatch in " + board.toFen());
+            System.out.println("  generated: " + moves);
+            System.out.println("  reference: " + reference);
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            mismatches += compare(depth - 1, reference);
+            board.unmakeMove();
+        }
+        return mismatches;
+    }
+
+    private static int[] sortedMoves(MoveList moves) {
+        int[] sorted = new int[moves.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = moves.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private long count(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = moveLists[depth];
+        generator.generateLegalMoves(board, moves);
+
+        // Bulk counting: the legal moves at the last ply are the leaves, no need to play them
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private void ensureMoveLists(int depth) {
+        if (moveLists.length <= depth) {
+            MoveList[] lists = new MoveList[depth + 1];
+            for (int i = 0; i <= depth; i++) {
+                lists[i] = i < moveLists.length ? moveLists[i] : new MoveList();
+            }
+            moveLists = lists;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package chess.perft;
+
+import chess.board.Board;
+import chess.move.MagicBitboards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line perft runner.
+ * <pre>
+ *   java -cp bin chess.perft.PerftRunner                  run the standard suite up to depth 4
+ *   java -cp bin chess.perft.PerftRunner suite 5          run the standard suite up to depth 5
+ *   java -cp bin chess.perft.PerftRunner "&lt;fen&gt;" 5        perft of a single position
+ *   java -cp bin chess.perft.PerftRunner "&lt;fen&gt;" 5 divide node count below every root move
+ *   java -cp bin chess.perft.PerftRunner magics           check the magic lookups against the ray loops
+ *   java -cp bin chess.perft.PerftRunner verify 4         compare the legal move generator with the reference
+ *                                                         generator in every position of the suite to depth 4
+ * </pre>
+ * Adding {@code --threads N} counts in parallel on N threads, and {@code --split D} sets how many plies are
+ * expanded into separate tasks (default 2).
+ */
+public class PerftRunner {
+    // Standard test positions and their published node counts, starting at depth 1
+    private static final Object[][] SUITE = {
+            {"Start position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    new long[]{20, 400, 8902, 197281, 4865609, 119060324}},
+            {"Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    new long[]{48, 2039, 97862, 4085603, 193690690}},
+            {"Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    new long[]{14, 191, 2812, 43238, 674624, 11030083}},
+            {"Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    new long[]{6, 264, 9467, 422333, 15833292}},
+            {"Position 4 mirrored", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+                    new long[]{6, 264, 9467, 422333, 15833292}},
+            {"Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    new long[]{44, 1486, 62379, 2103487, 89941194}},
+            {"Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    new long[]{46, 2079, 89890, 3894594, 164075551}}
+    };
+
+    public static void main(String[] args) {
+        int threads = 1;
+        int splitDepth = 2;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--split")) {
+                splitDepth = Integer.parseInt(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+
+        if (!positional.isEmpty() && positional.get(0).equals("magics")) {
+            int mismatches = MagicBitboards.verify();
+            System.out.println(mismatches == 0 ? "Magic lookups match the ray loops" : mismatches + " mismatches");
+            System.exit(mismatches == 0 ? 0 : 1);
+        }
+
+        if (!positional.isEmpty() && positional.get(0).equals("verify")) {
+            int maxDepth = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 4;
+            System.exit(verifySuite(maxDepth) ? 0 : 1);
+        }
+
+        ParallelPerft parallel = threads > 1 ? new ParallelPerft(threads) : null;
+        try {
+            if (positional.isEmpty() || positional.get(0).equals("suite")) {
+                int maxDepth = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 4;
+                boolean passed = runSuite(maxDepth, parallel, splitDepth);
+                System.exit(passed ? 0 : 1);
+            }
+
+            Board board = new Board();
+            board.setPosition(positional.get(0));
+            int depth = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 4;
+
+            long start = System.nanoTime();
+            long nodes;
+            if (positional.size() > 2 && positional.get(2).equals("divide")) {
+                Map<String, Long> divide = parallel != null
+                        ? parallel.divide(board, depth, splitDepth)
+                        : new Perft(board).divide(depth);
+                nodes = 0;
+                for (Map.Entry<String, Long> entry : divide.entrySet()) {
+                    System.out.println(entry.getKey() + ": " + entry.getValue());
+                    nodes += entry.getValue();
+                }
+                System.out.println();
+            } else {
+                nodes = parallel != null ? parallel.perft(board, depth, splitDepth) : new Perft(board).perft(depth);
+            }
+            report(depth, nodes, System.nanoTime() - start);
+        } finally {
+            if (parallel != null) {
+                parallel.shutdown();
+            }
+        }
+    }
+
+    public static boolean runSuite(int maxDepth) {
+        return runSuite(maxDepth, null, 0);
+    }
+
+    // Runs the suite, in parallel when a ParallelPerft is given
+    public static boolean runSuite(int maxDepth, ParallelPerft parallel, int splitDepth) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+
+        for (Object[] entry : SUITE) {
+            String name = (String) entry[0];
+            String fen = (String) entry[1];
+            long[] expected = (long[]) entry[2];
+
+            System.out.println(name + ": " + fen);
+            Board board = new Board();
+            board.setPosition(fen);
+            Perft perft = new Perft(board);
+
+            for (int depth = 1; depth <= Math.min(maxDepth, expected.length); depth++) {
+                long start = System.nanoTime();
+                long nodes = parallel != null ? parallel.perft(board, depth, splitDepth) : perft.perft(depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalTime += elapsed;
+
+                boolean ok = nodes == expected[depth - 1];
+                passed &= ok;
+                System.out.printf("  depth %d: %,d nodes %s, %.3f s, %,.0f nodes/s%n", depth, nodes,
+                        ok ? "OK" : "FAILED (expected " + expected[depth - 1] + ")",
+                        elapsed / 1e9, nodes * 1e9 / Math.max(elapsed, 1));
+            }
+        }
+
+        System.out.printf("%s: %,d nodes in %.3f s, %,.0f nodes/s%n", passed ? "All passed" : "FAILURES",
+                totalNodes, totalTime / 1e9, totalNodes * 1e9 / Math.max(totalTime, 1));
+        return passed;
+    }
+
+    // Cross-checks the legal move generator against the make/unmake reference in every position of the suite
+    public static boolean verifySuite(int maxDepth) {
+        int mismatches = 0;
+        for (Object[] entry : SUITE) {
+            Board board = new Board();
+            board.setPosition((String) entry[1]);
+            int positionMismatches = new Perft(board).verify(maxDepth);
+            System.out.println(entry[0] + ": " + (positionMismatches == 0 ? "OK" : positionMismatches + " mismatches"));
+            mismatches += positionMismatches;
+        }
+        System.out.println(mismatches == 0 ? "All positions match the reference generator" : "FAILURES: " + mismatches);
+        return mismatches == 0;
+    }
+
+    private static void report(int depth, long nodes, long elapsed) {
+        System.out.printf("Depth %d: %,d nodes in %.3f s, %,.0f nodes/s%n", depth, nodes, elapsed / 1e9,
+                nodes * 1e9 / Math.max(elapsed, 1));
+    }
+}
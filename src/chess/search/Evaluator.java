@@ -0,0 +1,31 @@
+package chess.search;
+
+import chess.board.Board;
+import chess.board.PieceSquareTables;
+
+/**
+ * Static evaluation in centipawns from the side to move's point of view: material, piece-square values and pawn
+ * structure, tapered between their midgame and endgame values by the game phase.
+ * <p>
+ * Board keeps the packed piece-square scores and the phase up to date in makeMove/unmakeMove, and the pawn
+ * structure almost always comes from the pawn hash, so an evaluation is a few arithmetic operations and a cache
+ * lookup.
+ */
+public final class Evaluator {
+    private Evaluator() {
+    }
+
+    public static int evaluate(Board board, PawnEvaluator pawns) {
+        int packed = board.getPieceSquareScore() + pawns.evaluate(board);
+        int score = PieceSquareTables.taper(packed, board.getPhase());
+        return board.isWhiteToMove() ? score : -score;
+    }
+
+    // Same value computed from the pieces on the board without any cache, for checking the incremental terms
+    public static int evaluateFromScratch(Board board) {
+        int packed = board.computePieceSquareScore()
+                + PawnEvaluator.computeScore(board.getWhitePawns(), board.getBlackPawns());
+        int score = PieceSquareTables.taper(packed, board.computePhase());
+        return board.isWhiteToMove() ? score : -score;
+    }
+}
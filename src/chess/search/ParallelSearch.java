@@ -0,0 +1,143 @@
+package chess.search;
+
+import chess.board.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Lazy SMP: the main search runs on the calling thread while helper threads search the same root on their own
+ * copies of the board, all sharing one {@link TranspositionTable}. The threads do not talk to each other; the
+ * helpers only fill the table with results the main search can then cut off with or order its moves by.
+ * <p>
+ * The main search alone decides the limits and the result, and the helpers are stopped when it returns. With one
+ * thread no helper is started and the result is exactly that of a single {@link Search}, which keeps tests
+ * deterministic.
+ */
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+        }
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table);
+            if (i > 0) {
+                searches[i].setHelper(i);
+            }
+        }
+        this.helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public SearchResult search(Board board, SearchLimits limits) {
+        return search(board, limits, null);
+    }
+
+    /**
+     * Searches with all threads until the main search reaches a limit.
+     *
+     * @param listener Called after every iteration of the main search; the node counts of the helpers in it are
+     *                 read while they run and may be slightly behind
+     */
+    public SearchResult search(Board board, SearchLimits limits, Consumer<SearchResult> listener) {
+        if (helpers == null) {
+            return searches[0].search(board, limits, listener);
+        }
+
+        // Helpers run without limits of their own, until they are stopped
+        List<Future<?>> running = new ArrayList<>(searches.length - 1);
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            Board copy = board.copy();
+            helper.resetNodes();
+            running.add(helpers.submit(() -> helper.search(copy, new SearchLimits())));
+        }
+
+        SearchResult result;
+        try {
+            result = searches[0].search(board, limits,
+                    listener == null ? null : info -> listener.accept(info.withNodes(getNodes())));
+        } finally {
+            stopHelpers(running);
+        }
+        return result.withNodes(getNodes());
+    }
+
+    // Asks a running search to return as soon as possible; safe to call from any thread
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    // Pawn hash hit rate of all threads over the last search
+    public double getPawnHashHitRate() {
+        long probes = 0;
+        long hits = 0;
+        for (Search search : searches) {
+            probes += search.getPawnEvaluator().getProbes();
+            hits += search.getPawnEvaluator().getHits();
+        }
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    private long getNodes() {
+        long nodes = 0;
+        for (Search search : searches) {
+            nodes += search.getNodes();
+        }
+        return nodes;
+    }
+
+    private void stopHelpers(List<Future<?>> running) {
+        try {
+            for (int i = 0; i < running.size(); i++) {
+                Future<?> future = running.get(i);
+                // Repeated, because a helper that has not started yet would reset a stop sent before it
+                while (true) {
+                    searches[i + 1].stop();
+                    try {
+                        future.get(1, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // Still running, ask again
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package chess.search;
+
+import chess.board.Board;
+import chess.board.PieceSquareTables;
+
+/**
+ * Pawn-structure terms (doubled, isolated, backward and passed pawns) computed with whole-board bitboard
+ * operations, and cached by the pawn-only Zobrist key.
+ * <p>
+ * The pawns change on few moves, so almost every lookup during a search finds its structure in the cache and
+ * the terms are only computed for new pawn formations. The cache is a fixed pair of arrays indexed by the low
+ * key bits, with the full key stored to reject collisions. It is not thread-safe: each {@link Search} has its
+ * own.
+ * <p>
+ * Scores are packed midgame/endgame values from white's point of view, as in {@link PieceSquareTables}.
+ */
+public class PawnEvaluator {
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    // With a1 = 0 the a-file is the low bit of every byte; BitboardConstants.FILE_A/FILE_H name the opposite files
+    private static final long A_FILE_MASK = 0x0101010101010101L;
+    private static final long H_FILE_MASK = A_FILE_MASK << 7;
+
+    private static final int DOUBLED = PieceSquareTables.pack(-10, -20);
+    private static final int ISOLATED = PieceSquareTables.pack(-10, -15);
+    private static final int BACKWARD = PieceSquareTables.pack(-8, -10);
+    // Indexed by the rank of the pawn seen from its own side, 0 for the first rank
+    private static final int[] PASSED = {
+            0,
+            PieceSquareTables.pack(5, 10),
+            PieceSquareTables.pack(10, 20),
+            PieceSquareTables.pack(15, 35),
+            PieceSquareTables.pack(25, 60),
+            PieceSquareTables.pack(40, 100),
+            PieceSquareTables.pack(60, 150),
+            0
+    };
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    public PawnEvaluator() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    // The entry count is rounded down to a power of two
+    public PawnEvaluator(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("Pawn hash needs at least one entry, got " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+        keys = new long[size];
+        scores = new int[size];
+        mask = size - 1;
+        // Key 0 is the position without pawns, whose score of 0 the empty entries already hold
+    }
+
+    // Packed pawn-structure score of the board, from the cache when the same pawns were evaluated before
+    public int evaluate(Board board) {
+        probes++;
+        long key = board.getPawnHash();
+        int index = (int) key & mask;
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+
+        int score = computeScore(board.getWhitePawns(), board.getBlackPawns());
+        keys[index] = key;
+        scores[index] = score;
+        return score;
+    }
+
+    // Black's pawns are scored by flipping the board vertically, so one routine handles both sides
+    public static int computeScore(long whitePawns, long blackPawns) {
+        return scoreSide(whitePawns, blackPawns) - scoreSide(Long.reverseBytes(blackPawns), Long.reverseBytes(whitePawns));
+    }
+
+    // Terms for the side whose pawns move up the board
+    private static int scoreSide(long pawns, long enemyPawns) {
+        int score = 0;
+
+        // Doubled: a friendly pawn stands somewhere behind on the same file
+        score += DOUBLED * Long.bitCount(pawns & northFill(pawns << 8));
+
+        // Isolated: no friendly pawn on either neighbouring file
+        long files = fileFill(pawns);
+        long neighbourFiles = ((files & ~H_FILE_MASK) << 1) | ((files & ~A_FILE_MASK) >>> 1);
+        score += ISOLATED * Long.bitCount(pawns & ~neighbourFiles);
+
+        // Backward: the stop square is covered by an enemy pawn and no friendly pawn can ever come to defend it
+        long attackSpans = northFill(attacksUp(pawns));
+        long enemyAttacks = attacksDown(enemyPawns);
+        score += BACKWARD * Long.bitCount(pawns & ((enemyAttacks & ~attackSpans) >>> 8));
+
+        // Passed: no enemy pawn ahead on the same or a neighbouring file
+        long enemyFronts = southFill(enemyPawns >>> 8);
+        long blocked = enemyFronts | ((enemyFronts & ~H_FILE_MASK) << 1) | ((enemyFronts & ~A_FILE_MASK) >>> 1);
+        long passed = pawns & ~blocked;
+        while (passed != 0) {
+            score += PASSED[Long.numberOfTrailingZeros(passed) >>> 3];
+            passed &= passed - 1;
+        }
+        return score;
+    }
+
+    private static long northFill(long bitboard) {
+        bitboard |= bitboard << 8;
+        bitboard |= bitboard << 16;
+        bitboard |= bitboard << 32;
+        return bitboard;
+    }
+
+    private static long southFill(long bitboard) {
+        bitboard |= bitboard >>> 8;
+        bitboard |= bitboard >>> 16;
+        bitboard |= bitboard >>> 32;
+        return bitboard;
+    }
+
+    private static long fileFill(long bitboard) {
+        return northFill(bitboard) | southFill(bitboard);
+    }
+
+    // Squares attacked by pawns moving up, and by pawns moving down the board
+    private static long attacksUp(long pawns) {
+        return ((pawns & ~A_FILE_MASK) << 7) | ((pawns & ~H_FILE_MASK) << 9);
+    }
+
+    private static long attacksDown(long pawns) {
+        return ((pawns & ~A_FILE_MASK) >>> 9) | ((pawns & ~H_FILE_MASK) >>> 7);
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+}
@@ -0,0 +1,335 @@
+package chess.search;
+
+import chess.board.Board;
+import chess.move.Move;
+import chess.move.MoveList;
+import chess.move.MovePicker;
+
+import java.util.function.Consumer;
+
+/**
+ * Negamax alpha-beta search with iterative deepening and a quiescence search over captures and promotions.
+ * <p>
+ * Each iteration searches one ply deeper, starting with the best move of the previous one. The node and time
+ * limits are hard: when one is hit the running iteration is abandoned, and the result of the last completed
+ * iteration is kept. A move from the abandoned iteration is used only if it already scored better than the
+ * previous best. Moves come from one reusable {@link MovePicker} per ply, so the search does not allocate per
+ * node.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}. A stored result that is deep enough ends the search of a
+ * position right away, and otherwise its move is searched first. A Search is single-threaded; use one instance
+ * per thread. Several instances can share one table, each keeps its own pawn hash ({@link PawnEvaluator}).
+ */
+public class Search {
+    public static final int MAX_PLY = 128;
+    public static final int MATE_SCORE = 30000;
+    // Scores at or beyond this are mates found within MAX_PLY
+    public static final int MATE_THRESHOLD = MATE_SCORE - MAX_PLY;
+    private static final int INFINITY = MATE_SCORE + 1;
+
+    // The clock is read every 1024 nodes, the node limit is checked at every node
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private final TranspositionTable table;
+    private final PawnEvaluator pawnEvaluator = new PawnEvaluator();
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    // Triangular principal variation table: pv[ply] holds the best line found from that ply
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private Board board;
+    private long nodes;
+    private long maxNodes;
+    private long startTime;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    // Set for the helper threads of a ParallelSearch: they leave the table age to the main search, and odd helpers
+    // start one ply deeper so the threads do not all work on the same iteration
+    private boolean helper;
+    private int firstDepth = 1;
+
+    public Search() {
+        this(new TranspositionTable());
+    }
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker(null, Move.NO_MOVE);
+        }
+    }
+
+    public SearchResult search(Board board, SearchLimits limits) {
+        return search(board, limits, null);
+    }
+
+    /**
+     * Searches the position until a limit is reached. The board is used as the search's working copy and is
+     * back in its original position when the call returns.
+     *
+     * @param listener Called after every completed iteration, e.g. to print UCI info lines; may be null
+     * @return The result of the deepest completed iteration
+     */
+    public SearchResult search(Board board, SearchLimits limits, Consumer<SearchResult> listener) {
+        this.board = board;
+        this.nodes = 0;
+        this.maxNodes = limits.getMaxNodes();
+        this.startTime = System.nanoTime();
+        this.deadline = limits.getMoveTimeMillis() > 0 ? startTime + limits.getMoveTimeMillis() * 1_000_000 : 0;
+        this.aborted = false;
+        this.stopRequested = false;
+        if (!helper) {
+            table.newSearch();
+        }
+        pawnEvaluator.resetStatistics();
+
+        MoveList rootMoves = new MoveList();
+        board.generateLegalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = board.isInCheck() ? -MATE_SCORE : 0;
+            return new SearchResult(Move.NO_MOVE, score, 0, 0, System.nanoTime() - startTime, new int[0], 0);
+        }
+
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY) : MAX_PLY;
+        // Until an iteration completes, fall back to the first legal move
+        SearchResult result = new SearchResult(rootMoves.get(0), 0, 0, 0, 0, new int[]{rootMoves.get(0)}, 0);
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            int bestScore = -INFINITY;
+            int bestIndex = -1;
+            int alpha = -INFINITY;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                board.makeMove(rootMoves.get(i));
+                int score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+                board.unmakeMove();
+                if (aborted) {
+                    break;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestIndex = i;
+                    alpha = score;
+                    updatePv(0, rootMoves.get(i));
+                }
+            }
+
+            // The previous best is searched first, so any best move of a partial iteration scored at least as well
+            if (bestIndex >= 0) {
+                int best = rootMoves.get(bestIndex);
+                for (int i = bestIndex; i > 0; i--) {
+                    rootMoves.set(i, rootMoves.get(i - 1));
+                }
+                rootMoves.set(0, best);
+
+                int[] line = new int[pvLength[0]];
+                System.arraycopy(pv[0], 0, line, 0, line.length);
+                result = new SearchResult(best, bestScore, aborted ? depth - 1 : depth, nodes,
+                        System.nanoTime() - startTime, line, table.getHashFull());
+            }
+            if (aborted) {
+                break;
+            }
+            if (listener != null) {
+                listener.accept(result);
+            }
+            // A mate within the full-width depth cannot get shorter, and one legal move needs no thought
+            if (MATE_SCORE - Math.abs(bestScore) <= depth || rootMoves.size() == 1) {
+                break;
+            }
+        }
+
+        this.board = null;
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                System.nanoTime() - startTime, result.getPrincipalVariation(), table.getHashFull());
+    }
+
+    // Pawn hash of this search; its statistics cover the last search
+    public PawnEvaluator getPawnEvaluator() {
+        return pawnEvaluator;
+    }
+
+    void setHelper(int index) {
+        helper = true;
+        firstDepth = 1 + (index & 1);
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    // Asks a running search to return as soon as possible; safe to call from any thread
+    public void stop() {
+        stopRequested = true;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+        if (board.isRepetition() || board.isFiftyMoveRule() || board.isInsufficientMaterial()) {
+            return 0;
+        }
+
+        boolean inCheck = board.isInCheck();
+        if (depth <= 0 && !inCheck) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board, pawnEvaluator);
+        }
+
+        long key = board.getHash();
+        long entry = table.probe(key);
+        int hashMove = TranspositionTable.getMove(entry);
+        if (entry != 0 && TranspositionTable.getDepth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+            int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                if (hashMove != Move.NO_MOVE) {
+                    pv[ply][0] = hashMove;
+                    pvLength[ply] = 1;
+                }
+                return score;
+            }
+        }
+
+        int originalAlpha = alpha;
+        MovePicker picker = pickers[ply];
+        picker.reset(board, hashMove, false);
+        int bestScore = -INFINITY;
+        int bestMove = Move.NO_MOVE;
+        int move;
+        while ((move = picker.next()) != Move.NO_MOVE) {
+            board.makeMove(move);
+            // Positions in check are searched one ply deeper, so a check at the horizon is never left unanswered
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound;
+        if (bestScore == -INFINITY) {
+            // No legal move: mated, preferring the longest defence, or stalemate
+            bestScore = inCheck ? -MATE_SCORE + ply : 0;
+            bound = TranspositionTable.BOUND_EXACT;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.BOUND_LOWER;
+        } else {
+            bound = bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        }
+        table.store(key, bestMove, scoreToTable(bestScore, ply), Math.max(depth, 0), bound);
+        return bestScore;
+    }
+
+    // Resolves captures and promotions until the position is quiet, so the static evaluation is not taken
+    // in the middle of an exchange. In check every evasion is searched instead.
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board, pawnEvaluator);
+        }
+
+        boolean inCheck = board.isInCheck();
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            // Stand pat: the side to move is assumed to have at least one move that keeps the static score
+            bestScore = Evaluator.evaluate(board, pawnEvaluator);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.reset(board, Move.NO_MOVE, !inCheck);
+        int move;
+        while ((move = picker.next()) != Move.NO_MOVE) {
+            board.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bestScore == -INFINITY) {
+            return -MATE_SCORE + ply;
+        }
+        return bestScore;
+    }
+
+    // Counts a node and returns true once the search has to stop
+    private boolean countNode() {
+        nodes++;
+        if (maxNodes > 0 && nodes >= maxNodes) {
+            aborted = true;
+        } else if ((nodes & TIME_CHECK_MASK) == 0) {
+            aborted = stopRequested || (deadline != 0 && System.nanoTime() >= deadline);
+        }
+        return aborted;
+    }
+
+    // Mate scores count plies from the root; the table stores them counted from the position itself, so they
+    // stay correct when the position is reached at another ply
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_THRESHOLD) {
+            return score + ply;
+        }
+        return score <= -MATE_THRESHOLD ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_THRESHOLD) {
+            return score - ply;
+        }
+        return score <= -MATE_THRESHOLD ? score + ply : score;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    // Nodes of the running or last search; read from another thread it may be slightly behind
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Lets a ParallelSearch count a helper's nodes from zero before the helper thread has picked up its search
+    void resetNodes() {
+        nodes = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package chess.search;
+
+/**
+ * Budget for one search. A value of 0 leaves that limit off; the search stops at whichever limit is reached
+ * first, or when {@link Search#stop()} is called.
+ */
+public class SearchLimits {
+    private int depth;
+    private long moveTimeMillis;
+    private long maxNodes;
+
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        return limits;
+    }
+
+    public static SearchLimits moveTime(long millis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTimeMillis(millis);
+        return limits;
+    }
+
+    // Thinking time from a game clock: a slice of the remaining time plus most of the increment
+    public static SearchLimits fromClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        long slice = remainingMillis / (movesToGo > 0 ? movesToGo + 1 : 30) + incrementMillis * 3 / 4;
+        // Keep a safety margin so the move is sent before the flag falls
+        long cap = Math.max(1, remainingMillis - 50);
+        return moveTime(Math.max(1, Math.min(slice, cap)));
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public long getMoveTimeMillis() {
+        return moveTimeMillis;
+    }
+
+    public void setMoveTimeMillis(long moveTimeMillis) {
+        this.moveTimeMillis = moveTimeMillis;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+}
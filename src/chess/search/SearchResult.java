@@ -0,0 +1,100 @@
+package chess.search;
+
+import chess.move.Move;
+
+/**
+ * Outcome of a completed search iteration: the best move and its score from the side to move's point of view,
+ * the principal variation and the effort spent so far.
+ */
+public final class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final int[] principalVariation;
+    private final int hashFull;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos, int[] principalVariation,
+                        int hashFull) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.principalVariation = principalVariation.clone();
+        this.hashFull = hashFull;
+    }
+
+    // The same result with the node count of all threads of a parallel search
+    SearchResult withNodes(long totalNodes) {
+        return new SearchResult(bestMove, score, depth, totalNodes, elapsedNanos, principalVariation, hashFull);
+    }
+
+    // Move.NO_MOVE when the root position has no legal move
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    // Centipawns, or a mate score beyond Search.MATE_THRESHOLD
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isMateScore() {
+        return Math.abs(score) >= Search.MATE_THRESHOLD;
+    }
+
+    // Full moves to mate, positive when the side to move mates; only meaningful for mate scores
+    public int getMateIn() {
+        int plies = Search.MATE_SCORE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public long getNodesPerSecond() {
+        return elapsedNanos > 0 ? nodes * 1_000_000_000L / elapsedNanos : 0;
+    }
+
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    // Permille of the transposition table in use by this search
+    public int getHashFull() {
+        return hashFull;
+    }
+
+    // UCI "info" line without the leading "info"
+    public String toUciInfo() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        if (isMateScore()) {
+            sb.append(" score mate ").append(getMateIn());
+        } else {
+            sb.append(" score cp ").append(score);
+        }
+        sb.append(" nodes ").append(nodes);
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" time ").append(getElapsedMillis());
+        sb.append(" hashfull ").append(hashFull);
+        if (principalVariation.length > 0) {
+            sb.append(" pv");
+            for (int move : principalVariation) {
+                sb.append(' ').append(Move.toUci(move));
+            }
+        }
+        return sb.toString();
+    }
+}
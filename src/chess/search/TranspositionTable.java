@@ -0,0 +1,204 @@
+package chess.search;
+
+import chess.move.Move;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size hash table of search results, shared safely by any number of search threads without locking.
+ * <p>
+ * The whole table is one {@code long[]}, so it is a single allocation that the garbage collector never has to
+ * trace. Entries are two longs, the Zobrist key XORed with the data and the data itself, and four entries make a
+ * 64-byte bucket. A reader recomputes the key from both halves. An entry torn by two threads writing it at once
+ * then fails the check and is treated as a miss, not returned with the wrong move or score.
+ * <p>
+ * A new result replaces the same position if it is already in the bucket, otherwise an empty slot, otherwise the
+ * entry that is worth least: shallow entries and entries left over from earlier searches go first.
+ * <p>
+ * Data layout: bits 0-16 the move, 17-32 the score (offset to be unsigned), 33-39 the depth, 40-41 the bound,
+ * 42-49 the search age.
+ */
+public class TranspositionTable {
+    public static final int BOUND_EXACT = 1;
+    // The score is at least the stored value (the search failed high)
+    public static final int BOUND_LOWER = 2;
+    // The score is at most the stored value (the search failed low)
+    public static final int BOUND_UPPER = 3;
+
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int LONGS_PER_BUCKET = ENTRIES_PER_BUCKET * 2;
+    private static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+
+    private static final int MOVE_MASK = 0x1FFFF;
+    private static final int SCORE_SHIFT = 17;
+    private static final int SCORE_OFFSET = 0x8000;
+    private static final int DEPTH_SHIFT = 33;
+    private static final int DEPTH_MASK = 0x7F;
+    private static final int BOUND_SHIFT = 40;
+    private static final int AGE_SHIFT = 42;
+    private static final int AGE_MASK = 0xFF;
+
+    private long[] table;
+    private int bucketMask;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    // Rounds down to a power of two number of buckets; the contents are lost
+    public void resize(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB, got " + sizeMb);
+        }
+        long buckets = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BYTES_PER_BUCKET);
+        // A Java array holds at most 2^31 - 1 longs
+        buckets = Math.min(buckets, 1L << 27);
+        table = new long[(int) buckets * LONGS_PER_BUCKET];
+        bucketMask = (int) buckets - 1;
+        age = 0;
+        resetStatistics();
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+        resetStatistics();
+    }
+
+    // Called once per search, so entries from earlier searches can be told apart and replaced first
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Looks the position up.
+     *
+     * @return The packed entry data, or 0 if the position is not stored; read it with the static accessors
+     */
+    public long probe(long key) {
+        probes.increment();
+        int base = bucketIndex(key);
+        for (int i = base; i < base + LONGS_PER_BUCKET; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param score Must already be adjusted for the distance to the root, see {@link Search}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketIndex(key);
+        int currentAge = age;
+        int replace = base;
+        int lowestValue = Integer.MAX_VALUE;
+        for (int i = base; i < base + LONGS_PER_BUCKET; i += 2) {
+            long data = table[i + 1];
+            if (data == 0) {
+                replace = i;
+                break;
+            }
+            if ((table[i] ^ data) == key) {
+                // Keep the known best move when the new result has none, e.g. after a fail low
+                if (move == Move.NO_MOVE) {
+                    move = getMove(data);
+                }
+                replace = i;
+                break;
+            }
+
+            // Every search since the entry was written costs it as much as 8 plies of depth
+            int staleness = (currentAge - getAge(data)) & AGE_MASK;
+            int value = getDepth(data) - 8 * staleness;
+            if (value < lowestValue) {
+                lowestValue = value;
+                replace = i;
+            }
+        }
+
+        long data = (move & MOVE_MASK)
+                | ((long) (score + SCORE_OFFSET) << SCORE_SHIFT)
+                | ((long) Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) currentAge << AGE_SHIFT);
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    public static int getMove(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    public static int getScore(long data) {
+        return (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - SCORE_OFFSET;
+    }
+
+    public static int getDepth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int getBound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 3);
+    }
+
+    private static int getAge(long data) {
+        return (int) ((data >>> AGE_SHIFT) & AGE_MASK);
+    }
+
+    // The low key bits pick the bucket, the full key is still compared on every probe
+    private int bucketIndex(long key) {
+        return ((int) key & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0.0 : (double) hits.sum() / total;
+    }
+
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+    }
+
+    // Permille of the first thousand entries written by the current search, the UCI "hashfull" value
+    public int getHashFull() {
+        int sampled = Math.min(1000, table.length / 2);
+        int used = 0;
+        for (int i = 0; i < sampled; i++) {
+            long data = table[i * 2 + 1];
+            if (data != 0 && getAge(data) == age) {
+                used++;
+            }
+        }
+        return sampled == 0 ? 0 : used * 1000 / sampled;
+    }
+
+    public int getSizeMb() {
+        return (int) ((long) table.length * Long.BYTES / (1024 * 1024));
+    }
+}
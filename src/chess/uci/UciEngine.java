@@ -0,0 +1,322 @@
+package chess.uci;
+
+import chess.board.Board;
+import chess.move.Move;
+import chess.perft.Perft;
+import chess.search.ParallelSearch;
+import chess.search.SearchLimits;
+import chess.search.SearchResult;
+import chess.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Universal Chess Interface front-end, so the engine can be driven by GUIs, match runners and perft tools.
+ * <p>
+ * Commands are read one per line. {@code go} runs on a worker thread, so {@code isready}, {@code stop} and
+ * {@code quit} are answered while it works. Supported commands: uci, isready, setoption name Hash|Threads value N, ucinewgame,
+ * position [startpos | fen &lt;fen&gt;] [moves ...], go [perft N | depth N | movetime MS | nodes N | wtime/btime/winc/binc MS
+ * | movestogo N | infinite], stop, quit
+ * and d (prints the board and its FEN).
+ * <pre>
+ *   java -cp bin chess.uci.UciEngine
+ * </pre>
+ */
+public class UciEngine {
+    private static final String ENGINE_NAME = "Chess";
+    private static final String ENGINE_AUTHOR = "Chess project";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private final TranspositionTable table = new TranspositionTable();
+    private ParallelSearch search = new ParallelSearch(1, table);
+    private Board board = new Board();
+    private Thread worker;
+    // Released by stop; under "go infinite" bestmove must not be sent before it, even if the search ends early
+    private CountDownLatch stopSignal = new CountDownLatch(0);
+
+    public UciEngine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(new BufferedReader(new InputStreamReader(System.in)), System.out).run();
+    }
+
+    // Reads commands until "quit" or the end of the input
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) {
+                break;
+            }
+        }
+        stopWorker();
+    }
+
+    /**
+     * Runs a single command.
+     *
+     * @return false once the engine should exit
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        switch (tokens[0]) {
+            case "":
+                break;
+            case "uci":
+                send("id name " + ENGINE_NAME);
+                send("id author " + ENGINE_AUTHOR);
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                stopWorker();
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                stopWorker();
+                board = new Board();
+                table.clear();
+                break;
+            case "position":
+                stopWorker();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopWorker();
+                go(tokens);
+                break;
+            case "stop":
+                stopWorker();
+                break;
+            case "quit":
+                return false;
+            case "d":
+                send(board.toString());
+                send("Fen: " + board.toFen());
+                break;
+            default:
+                // The protocol says to ignore unknown commands, the info line only helps when typing by hand
+                send("info string Unknown command: " + tokens[0]);
+                break;
+        }
+        return true;
+    }
+
+    // setoption name <id> value <x>
+    private void setOption(String[] tokens) {
+        if (tokens.length != 5 || !tokens[1].equals("name") || !tokens[3].equals("value")) {
+            send("info string Expected setoption name <id> value <x>");
+            return;
+        }
+
+        int value = parseInt(tokens[4], -1);
+        if (tokens[2].equalsIgnoreCase("Hash")) {
+            if (value < 1 || value > MAX_HASH_MB) {
+                send("info string Hash must be between 1 and " + MAX_HASH_MB + " MB");
+            } else {
+                table.resize(value);
+            }
+        } else if (tokens[2].equalsIgnoreCase("Threads")) {
+            if (value < 1 || value > MAX_THREADS) {
+                send("info string Threads must be between 1 and " + MAX_THREADS);
+            } else {
+                search.shutdown();
+                search = new ParallelSearch(value, table);
+            }
+        } else {
+            send("info string Unknown option: " + line(tokens, 1));
+        }
+    }
+
+    private void setPosition(String[] tokens) {
+        Board next = new Board();
+        int index = 1;
+        if (index < tokens.length && tokens[index].equals("startpos")) {
+            index++;
+        } else if (index < tokens.length && tokens[index].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (index++; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fen.append(tokens[index]).append(' ');
+            }
+            try {
+                next.setPosition(fen.toString().trim());
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            send("info string Expected startpos or fen");
+            return;
+        }
+
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                try {
+                    next.makeMove(Move.parseUci(next, tokens[index]));
+                } catch (IllegalArgumentException e) {
+                    // Keep the moves up to the bad one, as most engines do
+                    send("info string " + e.getMessage());
+                    break;
+                }
+            }
+        }
+        board = next;
+    }
+
+    private void go(String[] tokens) {
+        int perftDepth = -1;
+        SearchLimits limits = new SearchLimits();
+        long whiteTime = 0, blackTime = 0, whiteIncrement = 0, blackIncrement = 0;
+        int movesToGo = 0;
+        boolean infinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            String value = i + 1 < tokens.length ? tokens[i + 1] : "";
+            switch (tokens[i]) {
+                case "perft":
+                    perftDepth = parseInt(value, -1);
+                    break;
+                case "depth":
+                    limits.setDepth(parseInt(value, 0));
+                    break;
+                case "movetime":
+                    limits.setMoveTimeMillis(parseLong(value));
+                    break;
+                case "nodes":
+                    limits.setMaxNodes(parseLong(value));
+                    break;
+                case "wtime":
+                    whiteTime = parseLong(value);
+                    break;
+                case "btime":
+                    blackTime = parseLong(value);
+                    break;
+                case "winc":
+                    whiteIncrement = parseLong(value);
+                    break;
+                case "binc":
+                    blackIncrement = parseLong(value);
+                    break;
+                case "movestogo":
+                    movesToGo = parseInt(value, 0);
+                    break;
+                case "infinite":
+                    infinite = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // A game clock only sets the time when no explicit limit was given
+        long time = board.isWhiteToMove() ? whiteTime : blackTime;
+        long increment = board.isWhiteToMove() ? whiteIncrement : blackIncrement;
+        if (!infinite && time > 0 && limits.getMoveTimeMillis() == 0) {
+            limits.setMoveTimeMillis(SearchLimits.fromClock(time, increment, movesToGo).getMoveTimeMillis());
+        }
+
+        // The worker gets its own copy, so a following "position" cannot change the board under it
+        Board searchBoard = board.copy();
+        stopSignal = new CountDownLatch(1);
+        CountDownLatch waitForStop = infinite ? stopSignal : null;
+        if (perftDepth >= 0) {
+            int depth = perftDepth;
+            worker = new Thread(() -> perft(searchBoard, depth), "uci-perft");
+        } else {
+            worker = new Thread(() -> bestMove(searchBoard, limits, waitForStop), "uci-search");
+        }
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Same output as Stockfish, so perft tools can compare the per-move counts directly
+    private void perft(Board searchBoard, int depth) {
+        long start = System.nanoTime();
+        long nodes = 0;
+        for (Map.Entry<String, Long> entry : new Perft(searchBoard).divide(depth).entrySet()) {
+            send(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        send("");
+        send("Nodes searched: " + nodes);
+        send("info string time " + millis + " nps " + nodes * 1000 / millis);
+    }
+
+    // Without any limit (go infinite, or plain go) the search runs until "stop". A search can still end early on
+    // a mate or a single legal move; under go infinite its result is then held back until "stop".
+    private void bestMove(Board searchBoard, SearchLimits limits, CountDownLatch waitForStop) {
+        table.resetStatistics();
+        SearchResult result = search.search(searchBoard, limits, info -> send("info " + info.toUciInfo()));
+        if (waitForStop != null) {
+            try {
+                waitForStop.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        send(String.format("info string tt hits %d of %d probes (%.1f%%), pawn hash hits %.1f%%",
+                table.getHits(), table.getProbes(), table.getHitRate() * 100, search.getPawnHashHitRate() * 100));
+        send("bestmove " + (result.getBestMove() == Move.NO_MOVE ? "0000" : Move.toUci(result.getBestMove())));
+    }
+
+    // A search returns promptly after stop, perft cannot be interrupted and runs to the end
+    private void stopWorker() {
+        if (worker == null) {
+            return;
+        }
+        try {
+            // Repeated, because a stop that arrives before the worker has started its search would be lost
+            stopSignal.countDown();
+            while (worker.isAlive()) {
+                search.stop();
+                worker.join(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    private static String line(String[] tokens, int from) {
+        return String.join(" ", Arrays.copyOfRange(tokens, from, tokens.length));
+    }
+
+    private static int parseInt(String text, int fallback) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static long parseLong(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void send(String message) {
+        synchronized (out) {
+            out.println(message);
+            out.flush();
+        }
+    }
+}
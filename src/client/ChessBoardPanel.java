@@ -1,5 +1,7 @@
 package client;
 
+import chess.board.Board;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -108,39 +110,26 @@ public class ChessBoardPanel extends JPanel {
         fromCol = -1;
     }
 
-    public void updateBoard(String boardRepresentation) {
+    public void updateBoard(Board board) {
         try {
-            System.out.println("Updating board with: \n" + boardRepresentation);
-            String[] lines = boardRepresentation.split("\n");
-
-            if (lines.length < 8) {
-                System.err.println("Invalid board representation: not enough lines");
-                return;
-            }
-
             for (int row = 0; row < 8; row++) {
-                String line = lines[row].trim().replaceAll(" ","");
                 for (int col = 0; col < 8; col++) {
-                    char piece = '.';
-
-                    // Extract the piece character based on your board format
-                    // Adjust this based on how your server sends the board
-                    if (line.length() > col) {
-                        piece = line.charAt(col);
-                    }
+                    // Rows count up from rank 1, the same as the board squares
+                    char piece = board.getPieceChar(1L << (row * 8 + col));
 
                     // Set the piece or clear the square
-                    if (piece == '.' || piece == ' ') {
-                        squares[7-row][col].setIcon(null); // Flip row to display correctly
+                    if (piece == '.') {
+                        squares[row][col].setIcon(null);
+                        squares[row][col].setText("");
                     } else {
                         // Try to get the piece icon
                         Icon icon = pieceIcons.get(piece);
                         if (icon != null) {
-                            squares[7-row][col].setIcon(icon);
+                            squares[row][col].setIcon(icon);
                         } else {
                             // If no icon is found, display the piece character
-                            squares[7-row][col].setIcon(null);
-                            squares[7-row][col].setText(String.valueOf(piece));
+                            squares[row][col].setIcon(null);
+                            squares[row][col].setText(String.valueOf(piece));
                         }
                     }
                 }
@@ -1,5 +1,7 @@
 package client;
 
+import chess.board.Board;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -11,6 +13,7 @@ import java.net.Socket;
 import java.sql.SQLOutput;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Base64;
 
 public class ChessClientV2 extends JFrame {
 
@@ -331,19 +334,18 @@ public class ChessClientV2 extends JFrame {
             while(running && (response = in.readLine()) != null) {
                 System.out.println("Server: " + response);
                 if(response.startsWith("BOARD:")){
-                    // Collect the entire board representation first
-                    StringBuilder boardStr = new StringBuilder(response.substring(7));
-                    for (int i = 0; i < 8; i++) {  // Read exactly 8 rows for the chess board
-                        String line = in.readLine();
-                        if (line == null) break;
-                        System.out.println("Board line: " + line);
-                        boardStr.append("\n").append(line);
+                    // The whole position comes on one line as the Base64 of Board.encode()
+                    final Board board = new Board();
+                    try {
+                        board.decode(Base64.getDecoder().decode(response.substring(6).trim()));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Invalid board update: " + e.getMessage());
+                        continue;
                     }
 
-                    final String boardRepresentation = boardStr.toString();
                     SwingUtilities.invokeLater(() -> {
                         try {
-                            boardPanel.updateBoard(boardRepresentation);
+                            boardPanel.updateBoard(board);
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -479,6 +481,9 @@ public class ChessClientV2 extends JFrame {
                                 running = false;
                                 System.exit(0);
                             }
+                        } else if (finalResponse.startsWith("PGN:")) {
+                            // Record of the finished game, shown without the prefix so it can be copied as is
+                            messagesArea.append(finalResponse.substring(4) + "\n");
                         }else {
                             messagesArea.append(finalResponse + "\n");
                         }
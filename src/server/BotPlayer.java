@@ -0,0 +1,94 @@
+package server;
+
+import chess.board.Board;
+import chess.move.Move;
+import chess.search.Search;
+import chess.search.SearchLimits;
+import chess.search.SearchResult;
+import chess.search.TranspositionTable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computer opponent for players left waiting in the matchmaking queue. It takes a seat in a Room like a connected
+ * client, but has no socket: the room asks it for a move when it is its turn, and it answers with a search that is
+ * bounded in time and nodes.
+ */
+public class BotPlayer implements Player {
+    private static final long MOVE_TIME_MILLIS = 1000;
+    private static final long MAX_NODES = 2_000_000;
+    // Per bot, so memory grows with the number of bot games; small because a bot searches only a second per move
+    private static final int HASH_MB = 8;
+
+    // All bots share these threads, so the CPU spent on bot games stays bounded however many of them run
+    private static final ExecutorService SEARCH_THREADS = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable, "bot-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Server server;
+    private final TranspositionTable table = new TranspositionTable(HASH_MB);
+    private final Search search = new Search(table);
+    private volatile Room room;
+
+    public BotPlayer(Server server) {
+        this.server = server;
+    }
+
+    @Override
+    public String getUsername() {
+        return "Bot";
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        // The room tells the bot when to move, the messages meant for a human are dropped
+    }
+
+    @Override
+    public void setRoom(Room room) {
+        this.room = room;
+    }
+
+    // Called by the room with a copy of its board; the move is played back into the room from a search thread
+    public void requestMove(Room room, Board board) {
+        SEARCH_THREADS.execute(() -> {
+            // The seat may have been given up while the task was queued; Search.search would clear that stop
+            if (this.room != room) {
+                return;
+            }
+            SearchLimits limits = SearchLimits.moveTime(MOVE_TIME_MILLIS);
+            limits.setMaxNodes(MAX_NODES);
+            // Checked again after every iteration, so a stop that came just before the search started is not lost
+            SearchResult result = search.search(board, limits, info -> {
+                if (this.room != room) {
+                    search.stop();
+                }
+            });
+            if (this.room == room && result.getBestMove() != Move.NO_MOVE) {
+                room.playMove(this, Move.toUci(result.getBestMove()));
+            }
+        });
+    }
+
+    @Override
+    public void updateGameStats(boolean gameWon) {
+        // Bots have no account to record the result in, and the human player deletes the room
+        room = null;
+        search.stop();
+    }
+
+    // Gives up the seat when the opponent has left a running game
+    public void leave() {
+        Room current = room;
+        room = null;
+        search.stop();
+        if (current != null) {
+            current.removeClient(this);
+            server.deleteRoom(current.getId());
+        }
+    }
+}
@@ -8,44 +8,18 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.Socket;
-import java.util.HashMap;
 
-public class ClientHandlerV2 extends Thread {
+public class ClientHandlerV2 extends Thread implements Player {
     private final Server server;
     private final Socket clientSocket;
     private BufferedReader in;
     private PrintWriter out;
-    private HashMap<String, Integer> mapColumns;
-    private HashMap<String, Integer> mapRows;
     private Room room;
     private User user;
 
     public ClientHandlerV2(Server server, Socket socket) {
         this.server = server;
         this.clientSocket = socket;
-        initializeMaps();
-    }
-
-    private void initializeMaps() {
-        mapColumns = new HashMap<>();
-        mapColumns.put("a", 0);
-        mapColumns.put("b", 1);
-        mapColumns.put("c", 2);
-        mapColumns.put("d", 3);
-        mapColumns.put("e", 4);
-        mapColumns.put("f", 5);
-        mapColumns.put("g", 6);
-        mapColumns.put("h", 7);
-
-        mapRows = new HashMap<>();
-        mapRows.put("1", 0);
-        mapRows.put("2", 1);
-        mapRows.put("3", 2);
-        mapRows.put("4", 3);
-        mapRows.put("5", 4);
-        mapRows.put("6", 5);
-        mapRows.put("7", 6);
-        mapRows.put("8", 7);
     }
 
     private void setupStreams() throws IOException {
@@ -53,6 +27,10 @@ public class ClientHandlerV2 extends Thread {
         out = new PrintWriter(clientSocket.getOutputStream(), true);
     }
 
+    public String getUsername() {
+        return user != null ? user.getUsername() : "?";
+    }
+
     public void sendMessage(String message) {
         out.println(message);
     }
@@ -238,27 +216,10 @@ public class ClientHandlerV2 extends Thread {
             out.println("RESPONSE:MOVE:FAILED:You are not in any room");
             return false;
         }
-        String from = move.substring(0, 2);
-        String to = move.substring(2, 4);
-        if (!isValidPosition(from) || !isValidPosition(to)) {
-            out.println("RESPONSE: Invalid position format");
-            return false;
-        }
-        int fromIndex = mapRows.get(from.charAt(1) + "") * 8 + mapColumns.get(from.charAt(0) + "");
-        int toIndex = mapRows.get(to.charAt(1) + "") * 8 + mapColumns.get(to.charAt(0) + "");
-
+        // The room accepts coordinates ("e2e4") as well as SAN ("Nf3", "exd5", "O-O") and reports bad input itself
         return room.playMove(this, move);
     }
 
-    private boolean isValidPosition(String position) {
-        if (position.length() != 2) return false;
-
-        String col = position.charAt(0) + "";
-        String row = position.charAt(1) + "";
-
-        return mapColumns.containsKey(col) && mapRows.containsKey(row);
-    }
-
     private void closeConnection() {
         try {
             if (room != null) {
@@ -294,7 +255,6 @@ public class ClientHandlerV2 extends Thread {
         } else {
             System.out.println("User not authenticated, cannot update game stats.");
         }
-        room.removeClient(this);
         out.println("RESPONSE:GAME:ENDED");
         out.println("RESPONSE:LEAVE:SUCCESS");
         server.deleteRoom(room.getId());
@@ -0,0 +1,15 @@
+package server;
+
+/**
+ * A seat in a Room: a connected client or a bot. The room talks to its players only through this interface.
+ */
+public interface Player {
+    String getUsername();
+
+    void sendMessage(String message);
+
+    void setRoom(Room room);
+
+    // Called once the game is over, after the room has already given up the player's seat
+    void updateGameStats(boolean gameWon);
+}
@@ -1,16 +1,35 @@
 package server;
 
 import chess.board.Board;
+import chess.board.GameStatus;
+import chess.board.Position;
 import chess.move.Move;
+import chess.move.Pgn;
+import chess.move.San;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Room {
     private String name;
     private boolean isPrivate;
     private int id;
     private int currentPlayers;
-    private ClientHandlerV2 whitePlayer;
-    private ClientHandlerV2 blackPlayer;
+    private Player whitePlayer;
+    private Player blackPlayer;
     private Board board;
+
+    // Snapshot of the board after the last move, for readers outside the players' move path
+    private volatile Position position;
+
+    // Moves played so far in SAN, for the move announcements and PGN export
+    private final List<String> moveLog = new ArrayList<>();
+    private String result = "*";
     private boolean isGameOver;
     private boolean whiteToMove;
 
@@ -20,6 +39,7 @@ public class Room {
         this.id = id;
         this.currentPlayers = 0;
         this.board = new Board();
+        this.position = board.snapshot();
         this.whiteToMove = true; // White starts in chess
         this.isGameOver = false;
     }
@@ -29,36 +49,38 @@ public class Room {
 
     }
 
-    public void addClient(ClientHandlerV2 client) {
+    // Synchronized like playMove and removeClient, since a bot plays its moves from a search thread
+    public synchronized void addClient(Player client) {
         if (currentPlayers == 0) {
             whitePlayer = client;
             currentPlayers++;
             whitePlayer.sendMessage("RESPONSE: You joined as White");
             whitePlayer.sendMessage("ROOMID: " + id);
-            whitePlayer.sendMessage("BOARD: " + board.toString());
+            whitePlayer.sendMessage("BOARD: " + getBoardState());
         } else if (currentPlayers == 1) {
             if(blackPlayer != null) {
                 whitePlayer = client;
                 currentPlayers++;
                 whitePlayer.sendMessage("RESPONSE: You joined as White");
                 whitePlayer.sendMessage("ROOMID: " + id);
-                whitePlayer.sendMessage("BOARD: " + board.toString());
+                whitePlayer.sendMessage("BOARD: " + getBoardState());
                 blackPlayer.sendMessage("RESPONSE: Both player has joined. Game starting!");
             }else{
                 blackPlayer = client;
                 currentPlayers++;
                 blackPlayer.sendMessage("RESPONSE: You joined as Black");
                 blackPlayer.sendMessage("ROOMID: " + id);
-                blackPlayer.sendMessage("BOARD: " + board.toString());
+                blackPlayer.sendMessage("BOARD: " + getBoardState());
                 whitePlayer.sendMessage("RESPONSE: Both player has joined. Game starting!");
             }
 
         } else {
             client.sendMessage("RESPONSE: Room is full");
         }
+        requestBotMove();
     }
 
-    public boolean playMove(ClientHandlerV2 client, String move) {
+    public synchronized boolean playMove(Player client, String move) {
         if(currentPlayers < 2) {
             client.sendMessage("RESPONSE: Waiting for another player to join");
             return false;
@@ -75,27 +97,23 @@ public class Room {
         }
 
         try {
-            // Parse the move
-            String from = move.substring(0, 2);
-            String to = move.substring(2);
-
-            // Convert chess notation to board indices
-            int fromCol = from.charAt(0) - 'a';
-            int fromRow = from.charAt(1) - '1';
-            int toCol = to.charAt(0) - 'a';
-            int toRow = to.charAt(1) - '1';
-
-            int fromIndex = fromRow * 8 + fromCol;
-            int toIndex = toRow * 8 + toCol;
-            int moveType = Board.determineMoveType(board, fromIndex, toIndex, 3);
-            Move chessMove = new Move(fromIndex, toIndex,moveType);
-            if (board.generateLegalMoves().contains(chessMove)) {
-                board.makeMove(chessMove);
-            }else {
-                client.sendMessage("RESPONSE: Illegal move");
+            // Coordinates like "e2e4" or "e7e8n" (promotions default to a queen), anything else is read as SAN
+            move = move.trim();
+            int resolvedMove;
+            try {
+                resolvedMove = Move.isUciFormat(move) ? Move.parseUci(board, move) : San.parse(board, move);
+            } catch (IllegalArgumentException e) {
+                client.sendMessage("RESPONSE: " + e.getMessage());
                 return false;
             }
 
+            // The SAN has to be written before the move changes the board
+            String san = San.toSan(board, resolvedMove);
+            String moveText = (moveLog.size() / 2 + 1) + (whiteToMove ? ". " : "... ") + san;
+            moveLog.add(san);
+            board.makeMove(resolvedMove);
+            position = board.snapshot();
+
             // Update turn
             whiteToMove = !whiteToMove;
 
@@ -105,6 +123,9 @@ public class Room {
             blackPlayer.sendMessage("BOARD: " + boardState);
 
             // Notify whose turn it is now
+            String mover = whiteToMove ? "Black" : "White";
+            whitePlayer.sendMessage("RESPONSE: " + mover + " played " + moveText);
+            blackPlayer.sendMessage("RESPONSE: " + mover + " played " + moveText);
             String turnMessage = whiteToMove ? "White's turn" : "Black's turn";
             whitePlayer.sendMessage("RESPONSE: " + turnMessage);
             blackPlayer.sendMessage("RESPONSE: " + turnMessage);
@@ -119,27 +140,27 @@ public class Room {
 //                blackPlayer.sendMessage("RESPONSE: Stalemate! Game is a draw.");
 //            }
 
-            // Check for game over conditions
-            if (board.isCheckmate()) {
+            // Check for game over conditions, the status is evaluated once for the new position
+            GameStatus status = board.getGameStatus();
+            if (status == GameStatus.CHECKMATE) {
                 String winner = !whiteToMove ? "White" : "Black";
+                result = winner.equals("White") ? "1-0" : "0-1";
                 whitePlayer.sendMessage("RESPONSE: Checkmate! " + winner + " wins!");
                 blackPlayer.sendMessage("RESPONSE: Checkmate! " + winner + " wins!");
-                if(winner.equals("White")) {
-                    whitePlayer.updateGameStats(true);
-                    blackPlayer.updateGameStats(false);
-                } else {
-                    blackPlayer.updateGameStats(true);
-                    whitePlayer.updateGameStats(false);
-                }
-                isGameOver = true;
-            } else if (board.isStalemate()) {
-                whitePlayer.sendMessage("RESPONSE: Stalemate! Game is a draw.");
-                blackPlayer.sendMessage("RESPONSE: Stalemate! Game is a draw.");
-                whitePlayer.updateGameStats(false);
-                blackPlayer.updateGameStats(false);
-                isGameOver = true;
+                endGame(winner.equals("White") ? whitePlayer : blackPlayer);
+            } else if (status.isDraw()) {
+                // Stalemate, threefold repetition or the fifty-move rule end the game automatically
+                result = "1/2-1/2";
+                whitePlayer.sendMessage("RESPONSE: " + status.getDescription() + "! Game is a draw.");
+                blackPlayer.sendMessage("RESPONSE: " + status.getDescription() + "! Game is a draw.");
+                endGame(null);
+            } else if (status == GameStatus.CHECK) {
+                String side = whiteToMove ? "White" : "Black";
+                whitePlayer.sendMessage("RESPONSE: " + side + " is in check!");
+                blackPlayer.sendMessage("RESPONSE: " + side + " is in check!");
             }
 
+            requestBotMove();
             return true;
         } catch (Exception e) {
             client.sendMessage("RESPONSE: Invalid move format");
@@ -147,12 +168,64 @@ public class Room {
         }
     }
 
+    // Sends the record, then empties the seats before the players are told, so neither is reported as having left
+    private void endGame(Player winner) {
+        isGameOver = true;
+        sendPgn();
+        Player white = whitePlayer;
+        Player black = blackPlayer;
+        whitePlayer = null;
+        blackPlayer = null;
+        currentPlayers = 0;
+        white.updateGameStats(white == winner);
+        black.updateGameStats(black == winner);
+    }
+
+    // Hands the turn to a bot player, with its own copy of the board to search on
+    private void requestBotMove() {
+        Player toMove = whiteToMove ? whitePlayer : blackPlayer;
+        if (!isGameOver && currentPlayers == 2 && toMove instanceof BotPlayer) {
+            ((BotPlayer) toMove).requestMove(this, board.copy());
+        }
+    }
+
+    public List<String> getMoveLog() {
+        return new ArrayList<>(moveLog);
+    }
+
+    // The game so far in PGN, with "*" as the result while it is still running
+    public String getPgn() {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", name != null ? name : "?");
+        tags.put("Site", "Chess Server");
+        tags.put("Date", new SimpleDateFormat("yyyy.MM.dd").format(new Date()));
+        tags.put("Round", "-");
+        tags.put("White", whitePlayer != null ? whitePlayer.getUsername() : "?");
+        tags.put("Black", blackPlayer != null ? blackPlayer.getUsername() : "?");
+        tags.put("Result", result);
+        return Pgn.format(tags, moveLog, result);
+    }
+
+    // Sends the finished game to both players, one "PGN:" line per line of the record
+    private void sendPgn() {
+        for (String line : getPgn().split("\n")) {
+            whitePlayer.sendMessage("PGN:" + line);
+            blackPlayer.sendMessage("PGN:" + line);
+        }
+    }
+
     public boolean isFull() {
         return currentPlayers >= 2;
     }
 
+    // The position in the compact binary encoding, Base64 so it fits on one protocol line
     public String getBoardState() {
-        return board.toString();
+        return Base64.getEncoder().encodeToString(board.encode());
+    }
+
+    // Consistent view of the current position that can be read from any thread without locking
+    public Position getPosition() {
+        return position;
     }
 
     public String getName() {
@@ -175,7 +248,7 @@ public class Room {
         currentPlayers--;
     }
 
-    public void removeClient(ClientHandlerV2 client) {
+    public synchronized void removeClient(Player client) {
         if (whitePlayer == client) {
             whitePlayer = null;
             if (blackPlayer != null) {
@@ -188,6 +261,12 @@ public class Room {
             }
         }
         currentPlayers--;
+
+        // A bot has nobody left to play against once its opponent leaves a running game
+        Player remaining = whitePlayer != null ? whitePlayer : blackPlayer;
+        if (!isGameOver && remaining instanceof BotPlayer) {
+            ((BotPlayer) remaining).leave();
+        }
     }
 
     public boolean isEmpty() {
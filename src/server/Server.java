@@ -6,17 +6,29 @@ import java.net.Socket;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import utils.DatabaseConnection;
 
 public class Server {
+    // A player who waits this long in the matchmaking queue without an opponent is matched against a bot
+    private static final long BOT_MATCH_DELAY_SECONDS = 15;
 
     private ServerSocket server;
     private final int listenPort;
     private boolean running = true;
     private List<ClientHandlerV2> clients = new ArrayList<>();
     private final List<ClientHandlerV2> matchmakingQueue = new ArrayList<>();
-    private List<Room> rooms = new ArrayList<>();
+    // Changed from client handler and bot search threads while the others read it, and far more often read than changed
+    private final List<Room> rooms = new CopyOnWriteArrayList<>();
     private Connection connection;
+    private final ScheduledExecutorService matchmakingTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "matchmaking-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public synchronized void addToMatchmakingQueue(ClientHandlerV2 client) {
         matchmakingQueue.add(client);
@@ -36,9 +48,31 @@ public class Server {
             player2.sendMessage("MATCHED:" + roomId);
 
             System.out.println("Matched players into Room ID: " + roomId);
+        } else {
+            matchmakingTimer.schedule(() -> matchWithBot(client), BOT_MATCH_DELAY_SECONDS, TimeUnit.SECONDS);
         }
     }
 
+    private synchronized void matchWithBot(ClientHandlerV2 client) {
+        // Nothing to do if the player was matched with someone else or left the queue in the meantime
+        if (!matchmakingQueue.remove(client)) {
+            return;
+        }
+
+        int roomId = generateRoomId();
+        Room room = new Room("Bot Room " + roomId, true, roomId);
+        BotPlayer bot = new BotPlayer(this);
+        // Seated before joining, the bot only plays for the room it has been given
+        bot.setRoom(room);
+        room.addClient(client);
+        room.addClient(bot);
+        rooms.add(room);
+        client.setRoom(room);
+        client.sendMessage("MATCHED:" + roomId);
+
+        System.out.println("Matched player with a bot into Room ID: " + roomId);
+    }
+
     public synchronized void removeFromMatchmakingQueue(ClientHandlerV2 client) {
         matchmakingQueue.remove(client);
     }